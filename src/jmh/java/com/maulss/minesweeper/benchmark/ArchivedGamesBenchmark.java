@@ -0,0 +1,91 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.benchmark;
+
+import com.maulss.minesweeper.GameSettings;
+import com.maulss.minesweeper.stats.ArchivedGame;
+import com.maulss.minesweeper.stats.ArchivedGames;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The aggregates shown by the View Stats dialog, over histories of
+ * different lengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ArchivedGamesBenchmark {
+
+    private static final GameSettings[] PRESETS = {
+            GameSettings.BEGINNER,
+            GameSettings.INTERMEDIATE,
+            GameSettings.EXPERT,
+            GameSettings.PROFESSIONAL
+    };
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private ArchivedGames games;
+
+    @Setup
+    public void setup() {
+        games = history(size);
+    }
+
+    @Benchmark
+    public Optional<String> favouriteDifficulty() {
+        return games.getFavouriteDifficulty();
+    }
+
+    @Benchmark
+    public float averageMines() {
+        return games.getAverageMines();
+    }
+
+    @Benchmark
+    public float averageDensity() {
+        return games.getAverageDensity();
+    }
+
+    @Benchmark
+    public float averageCellCount() {
+        return games.getAverageCellCount();
+    }
+
+    @Benchmark
+    public float averageTime() {
+        return games.getAverageTime(TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Optional<Date> startDate() {
+        return games.getStartDate();
+    }
+
+    // a reproducible history of games spread over the presets
+    static ArchivedGames history(final int size) {
+        SplittableRandom random = new SplittableRandom(size);
+        ArchivedGames games = new ArchivedGames();
+        long date = 1_500_000_000_000L;
+        for (int x = 0; x < size; x++) {
+            date += random.nextInt(3_600_000);
+            games.add(new ArchivedGame(
+                    PRESETS[random.nextInt(PRESETS.length)],
+                    date,
+                    10 + random.nextInt(600),
+                    TimeUnit.SECONDS
+            ));
+        }
+        return games;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.benchmark;
+
+import com.maulss.minesweeper.board.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reveals boards with no mines from one corner, so a single click
+ * opens every cell. Every call opens {@link #CELLS} cells in all, on as
+ * many boards of the given side as that takes, prepared before the
+ * iteration, so the score should stay flat across params if revealing
+ * (including the win check) is linear in the cascade size. Only one
+ * call is timed per iteration, so it takes more iterations to warm up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 10)
+public class CascadeBenchmark {
+
+    // cells revealed per call
+    static final int CELLS = 1 << 20;
+
+    @Param({"16", "64", "256", "1024"})
+    public int side;
+
+    private Board[] boards;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        boards = new Board[CELLS / (side * side)];
+        for (int x = 0; x < boards.length; x++) {
+            boards[x] = new Board(side, side, 0);
+            boards[x].generate(0, side);
+        }
+    }
+
+    @Benchmark
+    public int fullCascade() {
+        int changed = 0;
+        for (Board board : boards) {
+            changed += board.reveal(0).size();
+            if (!board.isWon()) throw new IllegalStateException("Cascade did not open the whole board");
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.benchmark;
+
+import com.maulss.minesweeper.GameSettings;
+import com.maulss.minesweeper.stats.ArchivedGame;
+import com.maulss.minesweeper.stats.GameLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves a won game to a log in a temporary file, which is what every win
+ * costs regardless of how many games are already recorded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class GameLogBenchmark {
+
+    private final ArchivedGame game = new ArchivedGame(GameSettings.EXPERT, 0L, 120L, TimeUnit.SECONDS);
+
+    private Path path;
+    private GameLog log;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        path = Files.createTempFile("games", ".log");
+        log = new GameLog(path);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        log.close();
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        log.append(game);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.benchmark;
+
+import com.maulss.minesweeper.stats.ArchivedGames;
+import com.maulss.minesweeper.stats.GameArchive;
+import com.maulss.minesweeper.stats.GameStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the history the way games.json is written and reads it back,
+ * in memory so the benchmark never touches the real stats file, and opens
+ * the same history from a binary archive in a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class GameStatsBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private ArchivedGames games;
+    private String json;
+    private Path archive;
+
+    @Setup
+    public void setup() throws IOException {
+        games = ArchivedGamesBenchmark.history(size);
+
+        StringWriter writer = new StringWriter();
+        GameStats.writeJson(GameStats.GSON, games, writer);
+        json = writer.toString();
+
+        archive = Files.createTempFile("games", ".archive");
+        GameArchive.write(archive, 0L, games);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(archive);
+    }
+
+    @Benchmark
+    public String writeJson() {
+        StringWriter writer = new StringWriter();
+        GameStats.writeJson(GameStats.GSON, games, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public ArchivedGames readJson() {
+        return GameStats.readJson(GameStats.GSON, new StringReader(json));
+    }
+
+    @Benchmark
+    public GameArchive openArchive() throws IOException {
+        return GameArchive.open(archive);
+    }
+
+    @Benchmark
+    public ArchivedGames roundTrip() {
+        StringWriter writer = new StringWriter();
+        GameStats.writeJson(GameStats.GSON, games, writer);
+        return GameStats.readJson(GameStats.GSON, new StringReader(writer.toString()));
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.benchmark;
+
+import com.maulss.minesweeper.GameSettings;
+import com.maulss.minesweeper.board.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a board of each preset size from a click in its centre,
+ * which is what MineField.generate does on the first click.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class GenerateBenchmark {
+
+    @Param({"BEGINNER", "INTERMEDIATE", "EXPERT", "PROFESSIONAL"})
+    public String preset;
+
+    private GameSettings settings;
+    private int firstClick;
+    private long seed = 0L;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        settings = (GameSettings) GameSettings.class.getField(preset).get(null);
+        firstClick = (settings.getRows() / 2) * settings.getColumns() + settings.getColumns() / 2;
+    }
+
+    @Benchmark
+    public Board generate() {
+        Board board = new Board(settings);
+        board.generate(firstClick, seed++);
+        return board;
+    }
+}
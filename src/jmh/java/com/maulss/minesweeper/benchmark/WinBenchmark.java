@@ -0,0 +1,87 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.benchmark;
+
+import com.maulss.minesweeper.GameSettings;
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.board.Neighbors;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reveals the last safe cell of otherwise cleared boards, so the score
+ * is the cost of a single reveal plus the win check. One reveal is too
+ * short to time by itself, so every call reveals the last cell of
+ * {@link #BOARDS} boards prepared before the iteration, and the score
+ * is for all of them. Only one call is timed per iteration, so it takes
+ * more iterations to warm up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 10)
+public class WinBenchmark {
+
+    // boards revealed per call, so the score divided by 10 is nanoseconds per reveal
+    static final int BOARDS = 10_000;
+
+    @Param({"EXPERT", "PROFESSIONAL"})
+    public String preset;
+
+    private GameSettings settings;
+    private final Board[] boards = new Board[BOARDS];
+    private final int[] lastCells = new int[BOARDS];
+    private long seed = 0L;
+
+    @Setup(Level.Trial)
+    public void settings() throws ReflectiveOperationException {
+        settings = (GameSettings) GameSettings.class.getField(preset).get(null);
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        for (int x = 0; x < BOARDS; x++) {
+            boards[x] = new Board(settings);
+            lastCells[x] = prepare(boards[x]);
+        }
+    }
+
+    @Benchmark
+    public int lastReveal() {
+        int won = 0;
+        for (int x = 0; x < BOARDS; x++) {
+            boards[x].reveal(lastCells[x]);
+            if (boards[x].isWon()) won++;
+        }
+        return won;
+    }
+
+    // clears all but one cell of the board, and returns that cell
+    private int prepare(final Board board) {
+        board.generate(0, seed++);
+
+        // keep back a numbered cell away from empty regions, so no cascade opens it
+        Neighbors neighbors = board.getNeighbors();
+        int last = -1;
+        for (int index = board.getCells() - 1; index >= 0 && last == -1; index--) {
+            if (board.isMine(index) || board.getNumber(index) == 0) continue;
+
+            boolean nextToEmpty = false;
+            for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+                int adjacent = neighbors.get(n);
+                if (!board.isMine(adjacent) && board.getNumber(adjacent) == 0)
+                    nextToEmpty = true;
+            }
+            if (!nextToEmpty) last = index;
+        }
+
+        for (int index = 0; index < board.getCells(); index++)
+            if (index != last && !board.isMine(index))
+                board.reveal(index);
+        return last;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper;
+
+import javafx.scene.Node;
+
+/**
+ * Draws the cells of a {@link MineField} and forwards clicks on them
+ * back to it.
+ */
+public interface BoardView {
+
+    Node getNode();
+
+    void update(final int index);
+
+    void updateAll();
+
+    enum Type {
+
+        BUTTONS("Buttons", 99),
+        CANVAS("Canvas", 99),
+        VIRTUAL("Virtual", GameSettings.MAX_LENGTH);
+
+        private final String name;
+        private final int maxLength;
+
+        Type(final String name,
+             final int maxLength) {
+            this.name = name;
+            this.maxLength = maxLength;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMaxLength() {
+            return maxLength;
+        }
+
+        // boards too big to be drawn in full fall back to the virtual view
+        public Type fit(final GameSettings settings) {
+            return settings.getColumns() > maxLength || settings.getRows() > maxLength
+                    ? VIRTUAL
+                    : this;
+        }
+
+        public BoardView create(final MineField field,
+                                final GameSettings settings) {
+            switch (this) {
+                default:
+                case BUTTONS:
+                    return new ButtonBoardView(field, settings);
+                case CANVAS:
+                    return new CanvasBoardView(field, settings);
+                case VIRTUAL:
+                    return new VirtualBoardView(field, settings);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper;
+
+import javafx.scene.Node;
+import javafx.scene.layout.GridPane;
+
+import java.util.Objects;
+
+public final class ButtonBoardView implements BoardView {
+
+    private final GridPane pane = new GridPane();
+    private final MineButton[] buttons;
+
+    public ButtonBoardView(final MineField field,
+                           final GameSettings settings) {
+        Objects.requireNonNull(field, "field");
+
+        int width = settings.getColumns();
+        int height = settings.getRows();
+        buttons = new MineButton[width * height];
+
+        // assign each button their own position
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                MineButton button = new MineButton(field, x, y, settings.getSquareSize());
+                buttons[field.getBoard().index(x, y)] = button;
+                pane.add(button.getButton(), x, y);
+            }
+        }
+    }
+
+    public MineButton getButton(final int index) {
+        return buttons[index];
+    }
+
+    @Override
+    public Node getNode() {
+        return pane;
+    }
+
+    @Override
+    public void update(final int index) {
+        buttons[index].update();
+    }
+
+    @Override
+    public void updateAll() {
+        for (MineButton button : buttons)
+            button.update();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper;
+
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.ui.Tiles;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Objects;
+
+/**
+ * Draws the whole board on a single canvas from pre-rasterized tiles,
+ * with one mouse handler for every cell.
+ */
+public final class CanvasBoardView implements BoardView {
+
+    private final Board board;
+    private final Tiles tiles;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+
+    public CanvasBoardView(final MineField field,
+                           final GameSettings settings) {
+        Objects.requireNonNull(field, "field");
+
+        board = field.getBoard();
+        tiles = Tiles.of(settings.getSquareSize());
+
+        int size = tiles.getSize();
+        canvas = new Canvas(board.getWidth() * size, board.getHeight() * size);
+        gc = canvas.getGraphicsContext2D();
+
+        canvas.setOnMouseClicked(event -> {
+            int x = (int) (event.getX() / size);
+            int y = (int) (event.getY() / size);
+            if (x < 0 || y < 0 || x >= board.getWidth() || y >= board.getHeight()) return;
+
+            field.click(board.index(x, y), event);
+        });
+
+        updateAll();
+    }
+
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    @Override
+    public void update(final int index) {
+        // only the dirty tile is repainted
+        int size = tiles.getSize();
+        gc.drawImage(tiles.get(board, index), board.x(index) * size, board.y(index) * size);
+    }
+
+    @Override
+    public void updateAll() {
+        for (int index = 0; index < board.getCells(); index++)
+            update(index);
+    }
+}
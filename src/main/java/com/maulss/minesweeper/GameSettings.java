@@ -14,6 +14,9 @@ public final class GameSettings implements Serializable {
 
     private static final int SQUARE_SIZE = 30;
 
+    // longest side a board can have
+    public static final int MAX_LENGTH = 2048;
+
     public static final GameSettings
             BEGINNER        = new GameSettings(9,   9,  10),
             INTERMEDIATE    = new GameSettings(16, 16,  40),
@@ -110,7 +113,7 @@ public final class GameSettings implements Serializable {
             throw new NullPointerException("Number of rows isn't provided");
         if (mines == null)
             throw new NullPointerException("Number of mines isn't provided");
-        if (rows > 99 || columns > 99)
+        if (rows > MAX_LENGTH || columns > MAX_LENGTH)
             throw new IllegalArgumentException("Grid too big!");
         if (mines >= columns * rows - 9)
             throw new IllegalArgumentException("Too many mines!");
@@ -4,95 +4,200 @@
 
 package com.maulss.minesweeper;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.board.IntList;
+import com.maulss.minesweeper.replay.Recorder;
+import com.maulss.minesweeper.replay.Recording;
+import com.maulss.minesweeper.solver.NoGuessGenerator;
+import javafx.application.Platform;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+
 import java.util.Objects;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public final class MineField {
 
+    private static final NoGuessGenerator NO_GUESS = new NoGuessGenerator();
+
     private MineGame game;
 
-    private boolean generated = false;
+    private final Board board;
+    private final BoardView view;
+    private final Recorder recorder = new Recorder();
 
     private final int width;
     private final int height;
     private final int mines;
 
-    private MineButton[][] grid = null;
-    private MineButton lastClick = null;
+    // the board is reproducible from the settings, this seed and the first click
+    private long seed = new SplittableRandom().nextLong();
+
+    // index of the last clicked cell, or -1 before the first click
+    private int lastClick = -1;
 
-    private final List<MineButton> possibleMines;
+    // whether the seed came from a recording, and must be used as it is
+    private boolean replay = false;
+
+    // whether a board without guessing is being looked for, clicks wait until it's found
+    private boolean searching = false;
+    private CompletableFuture<Long> search = null;
 
     public MineField(final MineGame game,
-                     final GameSettings settings) {
+                     final GameSettings settings,
+                     final BoardView.Type viewType) {
         this.game = Objects.requireNonNull(game, "game");
 
         this.width = settings.getColumns();
         this.height = settings.getRows();
         this.mines = settings.getMines();
 
-        // temporary storage for assigning mines
-        possibleMines = new ArrayList<>(width * height);
-        grid = new MineButton[width][height];
-
-        // assign each button their own position
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                MineButton button = new MineButton(this, x, y, settings.getSquareSize());
-                grid[x][y] = button;
-                possibleMines.add(button);
-                game.getPane().add(button.getButton(), x, y);
+        board = new Board(settings);
+        view = viewType.create(this, settings);
+        game.getPane().getChildren().add(view.getNode());
+    }
+
+    /*
+     * Releasing one button while the other is still held counts as a
+     * middle click, so either way can chord a revealed number. Releasing
+     * the other button afterwards does nothing on a revealed cell.
+     */
+    public void click(final int index,
+                      final MouseEvent event) {
+        MouseButton button = event.getButton();
+        if ((button == MouseButton.PRIMARY && event.isSecondaryButtonDown())
+                || (button == MouseButton.SECONDARY && event.isPrimaryButtonDown()))
+            button = MouseButton.MIDDLE;
+        click(index, button);
+    }
+
+    public void click(final int index,
+                      final MouseButton button) {
+        if (game.hasFinished() || searching) return;
+        if (board.isRevealed(index)) {
+            if (button == MouseButton.MIDDLE && board.canChord(index)) {
+                recorder.record(index, Recording.CHORD);
+                update(board.chord(index));
             }
+            return;
+        }
+        switch (button) {
+            default: return;
+            case PRIMARY:
+                if (board.isFlagged(index)) return;
+                recorder.record(index, Recording.REVEAL);
+                boolean first = lastClick == -1;
+                lastClick = index;
+                if (!first) {
+                    reveal(index);
+                } else if (game.getMinesweeper().isNoGuess() && !replay) {
+                    search(index);
+                } else {
+                    game.start();
+                    reveal(index);
+                }
+                break;
+            case SECONDARY:
+                recorder.record(index, Recording.FLAG);
+                setFlagged(index, !board.isFlagged(index));
+                break;
         }
     }
 
     public void generate() {
-        if (generated) throw new IllegalStateException("Already generated");
-
-        // first of all, remove the possibility of a mine being
-        // generated at the clicked button or any button adjacent to it
-        possibleMines.remove(lastClick);
-        possibleMines.removeAll(lastClick.getAdjacent());
-
-        int length = possibleMines.size();
-
-        // compute whether or not each button should be a mine
-        Random random = new Random();
-        for (int x = 0; x < length; x++) {
-            if (x == mines) break;
-            int rand = random.nextInt(length - x);
-            MineButton button = possibleMines.get(rand);
-            button.setMine(true);
-            possibleMines.remove(button);
-        }
+        if (board.isGenerated()) throw new IllegalStateException("Already generated");
 
-        // release resources
-        possibleMines.clear();
-
-        // in order for the first click to be in an empty region,
-        // the initial button's number value must be 0 (and not be a mine)
-        lastClick.setNumber(0);
-
-        // compute how many mines are around each button
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                MineButton button = grid[x][y];
-                // do not set the number for mines or initial button
-                if (button.isMine() || button.equals(lastClick)) {
-                    // do not compute number for mines
-                    continue;
-                }
+        // the clicked cell and every cell adjacent to it
+        // are kept free of mines by the board
+        board.generate(lastClick, seed);
+    }
 
-                button.setNumber(button.getAdjacentMines());
-            }
+    /*
+     * Looks for a board which can be cleared without guessing, keeping
+     * the original seed if none is found in time. The search runs off the
+     * FX thread, which starts the game once it's done, unless the game
+     * was left in the meantime, which cancels it.
+     */
+    private void search(final int index) {
+        long original = seed;
+        searching = true;
+        search = NO_GUESS.findAsync(game.getSettings(), index, original);
+        search.exceptionally(e -> original)
+                .thenAcceptAsync(found -> {
+                    searching = false;
+                    if (game.hasFinished()) return;
+
+                    seed = found;
+                    game.start();
+                    reveal(index);
+                }, Platform::runLater);
+    }
+
+    // frees the workers still looking for a board, for the next game
+    public void cancelSearch() {
+        if (search != null) search.cancel(false);
+    }
+
+    // plays the board of a recorded game, to be called before the first click
+    public void replay(final long seed) {
+        if (board.isGenerated()) throw new IllegalStateException("Already generated");
+
+        this.seed = seed;
+        replay = true;
+    }
+
+    public boolean isReplay() {
+        return replay;
+    }
+
+    // changes to the board only go through click, so the recording has all of them
+    private void reveal(final int index) {
+        update(board.reveal(index));
+    }
+
+    // redraws the cells changed by a reveal or chord, then checks once whether the game is over
+    private void update(final IntList changed) {
+        for (int x = 0; x < changed.size(); x++)
+            view.update(changed.get(x));
+
+        if (game.hasFinished()) return;
+        if (board.isLost()) {
+            game.lose();
+        } else if (board.isWon()) {
+            game.win();
         }
+    }
+
+    private void setFlagged(final int index,
+                            final boolean flagged) {
+        if (flagged == board.isFlagged(index)) return;
 
-        generated = true;
+        board.toggleFlag(index);
+        game.adjustFlagsLeft(flagged ? -1 : 1);
+        view.update(index);
+    }
+
+    // the game so far, to be taken once it has finished
+    public Recording getRecording() {
+        int result = board.isWon() ? Recording.WON
+                : board.isLost() ? Recording.LOST
+                : Recording.ABANDONED;
+        return recorder.finish(game.getSettings(), seed, board.getFirstClick(), result,
+                game.getStartTime(), game.getTime(TimeUnit.NANOSECONDS));
     }
 
     public boolean isGenerated() {
-        return generated;
+        return board.isGenerated();
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public BoardView getView() {
+        return view;
     }
 
     public int getWidth() {
@@ -107,11 +212,15 @@ public final class MineField {
         return mines;
     }
 
-    public MineButton[][] getGrid() {
-        return grid;
+    public int getSafeCellsLeft() {
+        return board.getSafeCellsLeft();
+    }
+
+    public long getSeed() {
+        return seed;
     }
 
-    public MineButton getLastClick() {
+    public int getLastClick() {
         return lastClick;
     }
 
@@ -119,17 +228,8 @@ public final class MineField {
         return game;
     }
 
-    public void setLastClick(final MineButton lastClick) {
-        this.lastClick = Objects.requireNonNull(lastClick, "lastClick");
-    }
-
     public void showGrid() {
-        if (grid == null) throw new IllegalStateException("Grid hasn't been set up yet");
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                grid[x][y].activate();
-            }
-        }
+        board.revealAll();
+        view.updateAll();
     }
-}
\ No newline at end of file
+}
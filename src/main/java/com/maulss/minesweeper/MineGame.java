@@ -4,14 +4,12 @@
 
 package com.maulss.minesweeper;
 
+import com.maulss.minesweeper.replay.Recording;
 import com.maulss.minesweeper.stats.ArchivedGame;
-import com.maulss.minesweeper.stats.ArchivedGames;
-import com.maulss.minesweeper.stats.GameStats;
-import javafx.scene.layout.GridPane;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.layout.Pane;
 
-import java.io.IOException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
@@ -23,14 +21,16 @@ public final class MineGame {
     private final Minesweeper minesweeper;
     private final GameSettings settings;
     private final MineField field;
-    private final GridPane pane;
-    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
-    private long seconds = 0L;
+    private final Pane pane;
+    private final AnimationTimer timer = new Clock();
+    private long startTime = 0L;
+    private long endTime = 0L;
     private int flagsLeft;
 
     public MineGame(final Minesweeper minesweeper,
-                    final GridPane pane,
-                    final GameSettings settings) {
+                    final Pane pane,
+                    final GameSettings settings,
+                    final BoardView.Type viewType) {
         this.minesweeper = requireNonNull(minesweeper, "minesweeper");
         this.settings = requireNonNull(settings, "settings");
         this.pane = requireNonNull(pane, "pane");
@@ -39,7 +39,7 @@ public final class MineGame {
         minesweeper.setFlags(flagsLeft = settings.getMines());
         minesweeper.setTime(0L);
 
-        field = new MineField(this, settings);
+        field = new MineField(this, settings, requireNonNull(viewType, "viewType"));
 
         minesweeper.setFace("face_game.png");
     }
@@ -50,26 +50,18 @@ public final class MineGame {
 
         started = true;
         field.generate();
-        timer.scheduleAtFixedRate(() -> minesweeper.setTime(seconds++), 0L, 1L, TimeUnit.SECONDS);
+        startTime = System.nanoTime();
+        timer.start();
     }
 
     public ArchivedGame win() {
         finish();
         minesweeper.setFace("face_win.png");
 
-        // Save game
+        // Save game, unless it was only a replay
         ArchivedGame game = new ArchivedGame(this);
-        ArchivedGames games = minesweeper.getStats().getGames();
-
-        // update cache
-        games.add(game);
-
-        // update storage
-        try {
-            GameStats.writeJson(GameStats.GSON, games);
-        } catch (IOException e) {
-            Minesweeper.alertError(e);
-        }
+        if (!field.isReplay())
+            minesweeper.getStats().thenAcceptAsync(stats -> stats.add(game), Platform::runLater);
 
         return game;
     }
@@ -84,7 +76,15 @@ public final class MineGame {
         if (finished) return;
 
         finished = true;
-        timer.shutdown();
+        endTime = System.nanoTime();
+        timer.stop();
+        field.cancelSearch();
+
+        // keep how the game was played, won or not
+        if (started && !field.isReplay()) {
+            Recording recording = field.getRecording();
+            minesweeper.getStats().thenAcceptAsync(stats -> stats.addRecording(recording), Platform::runLater);
+        }
     }
 
     public boolean hasStarted() {
@@ -107,12 +107,20 @@ public final class MineGame {
         return field;
     }
 
-    public GridPane getPane() {
+    public Pane getPane() {
         return pane;
     }
 
-    public long getTime() {
-        return seconds;
+    // System.nanoTime when the clock started
+    public long getStartTime() {
+        return startTime;
+    }
+
+    // time played so far, or in total once finished
+    public long getTime(final TimeUnit unit) {
+        if (!started) return 0L;
+        long end = finished ? endTime : System.nanoTime();
+        return unit.convert(end - startTime, TimeUnit.NANOSECONDS);
     }
 
     public int getFlagsLeft() {
@@ -123,4 +131,20 @@ public final class MineGame {
         flagsLeft += adjust;
         minesweeper.setFlags(flagsLeft);
     }
+
+    /**
+     * Shows the seconds played, checked on every frame by the FX thread
+     * but only redrawn when they change.
+     */
+    private final class Clock extends AnimationTimer {
+
+        private long shown = -1L;
+
+        @Override
+        public void handle(final long now) {
+            long seconds = getTime(TimeUnit.SECONDS);
+            if (seconds == shown) return;
+            minesweeper.setTime(shown = seconds);
+        }
+    }
 }
\ No newline at end of file
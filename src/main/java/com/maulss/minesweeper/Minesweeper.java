@@ -4,11 +4,12 @@
 
 package com.maulss.minesweeper;
 
+import com.maulss.minesweeper.replay.Recording;
+import com.maulss.minesweeper.replay.ReplayPlayer;
 import com.maulss.minesweeper.stats.GameStats;
 import com.maulss.minesweeper.ui.MineMenuBar;
 import com.maulss.minesweeper.ui.Resources;
 import javafx.application.Application;
-import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -19,17 +20,20 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
 
 public final class Minesweeper extends Application {
 
     private Stage primaryStage = null;
     private final StackPane root = new StackPane();
-    private GridPane grid = null;
+    private StackPane board = null;
     private MineGame game = null;
     private GameSettings settings = GameSettings.EXPERT;
-    private GameStats stats = null;
+    private BoardView.Type viewType = BoardView.Type.BUTTONS;
+    private boolean noGuess = false;
 
     private HBox topBox = new HBox();
     private Label flags = new Label();
@@ -41,6 +45,9 @@ public final class Minesweeper extends Application {
         this.primaryStage = primaryStage;
         VBox box = new VBox(30);
 
+        // read the history while the window is built, instead of when stats are first needed
+        GameStats.preload();
+
         MenuBar menu = new MineMenuBar(this);
 
         // Top section
@@ -71,14 +78,13 @@ public final class Minesweeper extends Application {
         time.setAlignment(Pos.CENTER);
         topBox.getChildren().add(time);
 
-        grid = new GridPane();
-        StackPane.setAlignment(grid, Pos.BOTTOM_CENTER);
-        grid.setAlignment(Pos.BOTTOM_CENTER);
-        grid.setPadding(new Insets(5));
+        board = new StackPane();
+        board.setAlignment(Pos.BOTTOM_CENTER);
+        board.setPadding(new Insets(5));
 
         box.getChildren().add(menu);
         box.getChildren().add(topBox);
-        box.getChildren().add(grid);
+        box.getChildren().add(board);
 
         ScrollPane scrollPane = new ScrollPane();
         scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
@@ -98,9 +104,20 @@ public final class Minesweeper extends Application {
         primaryStage.show();
     }
 
+    // also called when the window is closed, so games still being saved aren't lost
+    @Override
+    public void stop() {
+        try {
+            GameStats.shutdown();
+        } catch (IOException e) {
+            alertError(e);
+        }
+    }
+
     public void setup(final GameSettings settings) {
         this.settings = settings;
-        topBox.setSpacing((2.5f * settings.getColumns() * settings.getSquareSize()) / 10f);
+        float width = Math.min(settings.getColumns() * settings.getSquareSize(), VirtualBoardView.MAX_WIDTH);
+        topBox.setSpacing((2.5f * width) / 10f);
 
         newGame();
 
@@ -110,11 +127,37 @@ public final class Minesweeper extends Application {
     public void newGame() {
         if (game != null)
             game.finish();
-        game = new MineGame(this, grid, settings);
+        game = new MineGame(this, board, settings, viewType.fit(settings));
+    }
+
+    // plays a recorded game on a new board with its settings
+    public void replay(final Recording recording,
+                       final double speed) {
+        setup(recording.getSettings());
+        game.getField().replay(recording.getSeed());
+        new ReplayPlayer(game, recording, speed).play();
+    }
+
+    public BoardView.Type getViewType() {
+        return viewType;
+    }
+
+    public void setViewType(final BoardView.Type viewType) {
+        this.viewType = viewType;
+        setup(settings);
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    public void setNoGuess(final boolean noGuess) {
+        this.noGuess = noGuess;
     }
 
+    // to be called on the FX thread
     public void setTime(final long seconds) {
-        Platform.runLater(() -> time.setText(String.valueOf(seconds)));
+        time.setText(String.valueOf(seconds));
     }
 
     public void setFlags(final int flags) {
@@ -125,10 +168,9 @@ public final class Minesweeper extends Application {
         face.setBackground(Resources.getAutoBackground(Resources.getImage(faceResource)));
     }
 
-    public GameStats getStats() {
-        return stats == null
-                ? stats = GameStats.getInstance()
-                : stats;
+    // the history, completing once it has been loaded in the background
+    public CompletableFuture<GameStats> getStats() {
+        return GameStats.preload();
     }
 
     public static void alertError(final Exception exception) {
@@ -0,0 +1,123 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper;
+
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.ui.Tiles;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.BorderPane;
+
+import java.util.Objects;
+
+/**
+ * Draws only the part of the board which is scrolled into view onto a
+ * canvas the size of the viewport. The canvas is reused while scrolling,
+ * so the memory used by the UI does not depend on the size of the board.
+ */
+public final class VirtualBoardView implements BoardView {
+
+    public static final int
+            MAX_WIDTH   = 1440,
+            MAX_HEIGHT  = 840;
+
+    private final Board board;
+    private final Tiles tiles;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final ScrollBar horizontal = new ScrollBar();
+    private final ScrollBar vertical = new ScrollBar();
+    private final BorderPane pane = new BorderPane();
+
+    public VirtualBoardView(final MineField field,
+                            final GameSettings settings) {
+        Objects.requireNonNull(field, "field");
+
+        board = field.getBoard();
+        tiles = Tiles.of(settings.getSquareSize());
+
+        int size = tiles.getSize();
+        int width = board.getWidth() * size;
+        int height = board.getHeight() * size;
+        canvas = new Canvas(Math.min(width, MAX_WIDTH), Math.min(height, MAX_HEIGHT));
+        gc = canvas.getGraphicsContext2D();
+
+        setupScrollBar(horizontal, Orientation.HORIZONTAL, width, canvas.getWidth());
+        setupScrollBar(vertical, Orientation.VERTICAL, height, canvas.getHeight());
+
+        canvas.setOnMouseClicked(event -> {
+            int x = (int) ((event.getX() + horizontal.getValue()) / size);
+            int y = (int) ((event.getY() + vertical.getValue()) / size);
+            if (x < 0 || y < 0 || x >= board.getWidth() || y >= board.getHeight()) return;
+
+            field.click(board.index(x, y), event);
+        });
+        canvas.setOnScroll(event -> {
+            scroll(horizontal, -event.getDeltaX());
+            scroll(vertical, -event.getDeltaY());
+        });
+
+        pane.setCenter(canvas);
+        if (horizontal.getMax() > 0) pane.setBottom(horizontal);
+        if (vertical.getMax() > 0) pane.setRight(vertical);
+
+        updateAll();
+    }
+
+    private void setupScrollBar(final ScrollBar bar,
+                                final Orientation orientation,
+                                final double content,
+                                final double viewport) {
+        bar.setOrientation(orientation);
+        bar.setMin(0);
+        bar.setMax(Math.max(0, content - viewport));
+        bar.setVisibleAmount(viewport);
+        bar.setUnitIncrement(tiles.getSize());
+        bar.setBlockIncrement(viewport);
+        bar.valueProperty().addListener((observable, oldValue, newValue) -> updateAll());
+    }
+
+    private static void scroll(final ScrollBar bar,
+                               final double delta) {
+        bar.setValue(Math.max(bar.getMin(), Math.min(bar.getMax(), bar.getValue() + delta)));
+    }
+
+    @Override
+    public Node getNode() {
+        return pane;
+    }
+
+    @Override
+    public void update(final int index) {
+        int size = tiles.getSize();
+        double x = board.x(index) * size - horizontal.getValue();
+        double y = board.y(index) * size - vertical.getValue();
+
+        // cells outside of the viewport are drawn once scrolled to
+        if (x <= -size || y <= -size || x >= canvas.getWidth() || y >= canvas.getHeight()) return;
+
+        gc.drawImage(tiles.get(board, index), x, y);
+    }
+
+    @Override
+    public void updateAll() {
+        int size = tiles.getSize();
+        int left = (int) (horizontal.getValue() / size);
+        int top = (int) (vertical.getValue() / size);
+
+        // one extra tile on each axis covers partially scrolled cells
+        int right = Math.min(board.getWidth(), left + (int) (canvas.getWidth() / size) + 2);
+        int bottom = Math.min(board.getHeight(), top + (int) (canvas.getHeight() / size) + 2);
+
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                update(board.index(x, y));
+            }
+        }
+    }
+}
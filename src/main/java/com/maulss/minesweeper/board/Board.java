@@ -0,0 +1,406 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.board;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.util.SplittableRandom;
+
+/**
+ * Headless minesweeper board. All cell state is packed into primitive
+ * arrays indexed by {@code y * width + x}: one byte per cell for the
+ * adjacent mine count and one bit per cell for mines, revealed and
+ * flagged cells. No JavaFX classes are needed to play a game.
+ */
+public final class Board {
+
+    // value stored in the numbers array for cells which are mines
+    public static final byte MINE = -1;
+
+    private final int width;
+    private final int height;
+    private final int mines;
+    private final int cells;
+
+    private final Neighbors neighbors;
+    private final byte[] numbers;
+    private final long[] mineBits;
+    private final IntSet revealed;
+    private final IntSet flagged;
+
+    // cells changed by the last reveal, doubling as the flood fill queue
+    private final IntList changed;
+
+    private boolean generated = false;
+    private boolean won = false;
+    private boolean lost = false;
+    private long seed = 0L;
+    private int firstClick = -1;
+    private int exploded = -1;
+    private int safeLeft;
+
+    public Board(final GameSettings settings) {
+        this(settings.getColumns(), settings.getRows(), settings.getMines());
+    }
+
+    public Board(final int width,
+                 final int height,
+                 final int mines) {
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("Board must be at least 1x1");
+        if (mines < 0 || mines >= width * height - 9)
+            throw new IllegalArgumentException("Too many mines!");
+
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+        this.cells = width * height;
+        this.safeLeft = cells - mines;
+
+        int words = (cells + 63) >>> 6;
+        neighbors = Neighbors.of(width, height);
+        numbers = new byte[cells];
+        mineBits = new long[words];
+        revealed = new IntSet(cells);
+        flagged = new IntSet(cells);
+        // grows on demand so huge boards don't pay for a full-size queue up front
+        changed = new IntList(Math.min(cells, 1 << 12));
+    }
+
+    public void generate(final int firstClick,
+                         final long seed) {
+        generate(firstClick, new SplittableRandom(seed));
+        this.seed = seed;
+    }
+
+    public void generate(final int firstClick,
+                         final SplittableRandom random) {
+        if (generated) throw new IllegalStateException("Already generated");
+        checkIndex(firstClick);
+
+        this.firstClick = firstClick;
+        int fx = x(firstClick);
+        int fy = y(firstClick);
+
+        // the first click and all cells adjacent to it are never mines
+        int[] candidates = new int[cells];
+        int length = 0;
+        for (int index = 0; index < cells; index++) {
+            if (Math.abs(x(index) - fx) > 1 || Math.abs(y(index) - fy) > 1)
+                candidates[length++] = index;
+        }
+
+        // partial Fisher-Yates shuffle: the first "mines" candidates become mines
+        for (int x = 0; x < mines; x++) {
+            int swap = x + random.nextInt(length - x);
+            int mine = candidates[swap];
+            candidates[swap] = candidates[x];
+            candidates[x] = mine;
+
+            set(mineBits, mine);
+        }
+
+        computeNumbers();
+        assert numbersMatchAdjacentMines() : "Bulk mine counts differ from per-cell counts";
+
+        generated = true;
+    }
+
+    /*
+     * Computes how many mines are around every cell at once. The mines
+     * are copied into a row-aligned bitboard and, for each 64-cell word
+     * of a row, the eight neighbouring words (the rows above and below,
+     * and each row shifted one cell left and right) are summed with a
+     * bit-sliced adder: bit i of s0..s3 holds the 4-bit count of cell i.
+     */
+    private void computeNumbers() {
+        int rowWords = (width + 63) >>> 6;
+        long[] rows = new long[height * rowWords];
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < rowWords; w++) {
+                int start = w << 6;
+                rows[y * rowWords + w] = bits(mineBits, y * width + start, Math.min(64, width - start));
+            }
+        }
+
+        long[] inputs = new long[8];
+        for (int y = 0; y < height; y++) {
+            for (int w = 0; w < rowWords; w++) {
+                int count = 0;
+                for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+                    int row = ny * rowWords;
+                    long word = rows[row + w];
+                    long previous = w > 0 ? rows[row + w - 1] : 0L;
+                    long next = w < rowWords - 1 ? rows[row + w + 1] : 0L;
+
+                    // neighbour to the left, then to the right, of every cell
+                    inputs[count++] = (word << 1) | (previous >>> 63);
+                    inputs[count++] = (word >>> 1) | (next << 63);
+                    if (ny != y) inputs[count++] = word;
+                }
+
+                long s0 = 0L, s1 = 0L, s2 = 0L, s3 = 0L;
+                for (int x = 0; x < count; x++) {
+                    long carry0 = s0 & inputs[x];
+                    s0 ^= inputs[x];
+                    long carry1 = s1 & carry0;
+                    s1 ^= carry0;
+                    long carry2 = s2 & carry1;
+                    s2 ^= carry1;
+                    s3 |= carry2;
+                }
+
+                int start = w << 6;
+                int base = y * width + start;
+                int length = Math.min(64, width - start);
+                for (int x = 0; x < length; x++) {
+                    numbers[base + x] = get(mineBits, base + x)
+                            ? MINE
+                            : (byte) (((s0 >>> x) & 1)
+                                    | ((s1 >>> x) & 1) << 1
+                                    | ((s2 >>> x) & 1) << 2
+                                    | ((s3 >>> x) & 1) << 3);
+                }
+            }
+        }
+    }
+
+    // cross-check of computeNumbers, only run with assertions enabled
+    private boolean numbersMatchAdjacentMines() {
+        for (int index = 0; index < cells; index++) {
+            int expected = get(mineBits, index) ? MINE : countAdjacentMines(index);
+            if (numbers[index] != expected) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reveals a cell and, if it has no adjacent mines, the whole empty
+     * region around it. The returned list holds every cell which was
+     * revealed and is reused by the next call.
+     */
+    public IntList reveal(final int index) {
+        checkIndex(index);
+        if (!generated) throw new IllegalStateException("Board hasn't been generated yet");
+
+        changed.clear();
+        if (isFinished() || revealed.contains(index) || flagged.contains(index)) return changed;
+
+        revealed.add(index);
+        changed.add(index);
+
+        if (get(mineBits, index)) {
+            exploded = index;
+            lost = true;
+            return changed;
+        }
+
+        return flood();
+    }
+
+    /**
+     * Whether a revealed number can be chorded: as many of its neighbours
+     * are flagged as it has adjacent mines, and some are still hidden.
+     */
+    public boolean canChord(final int index) {
+        checkIndex(index);
+        if (isFinished() || !revealed.contains(index) || get(mineBits, index)) return false;
+
+        int flags = 0;
+        int hidden = 0;
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+            int adjacent = neighbors.get(n);
+            if (flagged.contains(adjacent)) flags++;
+            else if (!revealed.contains(adjacent)) hidden++;
+        }
+        return hidden > 0 && flags == numbers[index];
+    }
+
+    /**
+     * Reveals every hidden, unflagged neighbour of a number which can be
+     * chorded, and the empty regions around them, in a single flood fill.
+     * Any of them being a mine (because of a wrong flag) loses the game.
+     * The returned list works the same as the one from {@link #reveal}.
+     */
+    public IntList chord(final int index) {
+        changed.clear();
+        if (!canChord(index)) return changed;
+
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+            int adjacent = neighbors.get(n);
+            if (flagged.contains(adjacent) || !revealed.add(adjacent)) continue;
+
+            changed.add(adjacent);
+            if (get(mineBits, adjacent)) {
+                if (exploded == -1) exploded = adjacent;
+                lost = true;
+            }
+        }
+        if (lost) return changed;
+
+        return flood();
+    }
+
+    /*
+     * Breadth-first over the changed cells, which are already revealed,
+     * expanding every cell which has no adjacent mines.
+     */
+    private IntList flood() {
+        for (int head = 0; head < changed.size(); head++) {
+            int cell = changed.get(head);
+            if (numbers[cell] != 0) continue;
+
+            for (int n = neighbors.start(cell), end = neighbors.end(cell); n < end; n++) {
+                int adjacent = neighbors.get(n);
+                if (flagged.contains(adjacent) || !revealed.add(adjacent)) continue;
+
+                changed.add(adjacent);
+            }
+        }
+
+        safeLeft -= changed.size();
+        if (safeLeft == 0) won = true;
+
+        return changed;
+    }
+
+    public void revealAll() {
+        for (int index = 0; index < cells; index++)
+            revealed.add(index);
+    }
+
+    public boolean toggleFlag(final int index) {
+        checkIndex(index);
+        if (isFinished() || revealed.contains(index)) return flagged.contains(index);
+
+        if (!flagged.remove(index)) {
+            flagged.add(index);
+            return true;
+        }
+        return false;
+    }
+
+    public int countAdjacentMines(final int index) {
+        int adjacent = 0;
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+            if (get(mineBits, neighbors.get(n)))
+                adjacent++;
+        }
+        return adjacent;
+    }
+
+    public int index(final int x,
+                     final int y) {
+        return y * width + x;
+    }
+
+    public int x(final int index) {
+        return index % width;
+    }
+
+    public int y(final int index) {
+        return index / width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public Neighbors getNeighbors() {
+        return neighbors;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    public int getFlags() {
+        return flagged.size();
+    }
+
+    public int getSafeCellsLeft() {
+        return safeLeft;
+    }
+
+    // only meaningful if the board was generated from a seed
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getFirstClick() {
+        return firstClick;
+    }
+
+    public int getExploded() {
+        return exploded;
+    }
+
+    public boolean isGenerated() {
+        return generated;
+    }
+
+    public boolean isMine(final int index) {
+        return get(mineBits, index);
+    }
+
+    public boolean isRevealed(final int index) {
+        return revealed.contains(index);
+    }
+
+    public boolean isFlagged(final int index) {
+        return flagged.contains(index);
+    }
+
+    public int getNumber(final int index) {
+        if (numbers[index] == MINE) throw new IllegalStateException(
+                "(" + x(index) + ", " + y(index) + ") Does not have a number because it is a mine");
+        return numbers[index];
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public boolean isLost() {
+        return lost;
+    }
+
+    public boolean isFinished() {
+        return won || lost;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= cells)
+            throw new IndexOutOfBoundsException("Cell " + index + " is outside of a " + width + "x" + height + " board");
+    }
+
+    // reads "length" (at most 64) bits starting at any bit offset
+    private static long bits(final long[] bits,
+                             final int offset,
+                             final int length) {
+        int word = offset >>> 6;
+        int shift = offset & 63;
+        long value = bits[word] >>> shift;
+        if (shift != 0 && word + 1 < bits.length)
+            value |= bits[word + 1] << (64 - shift);
+        return length == 64 ? value : value & ((1L << length) - 1);
+    }
+
+    private static boolean get(final long[] bits, final int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(final long[] bits, final int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.board;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, meant to be cleared and reused
+ * instead of reallocated.
+ */
+public final class IntList {
+
+    private int[] data;
+    private int size = 0;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(final int capacity) {
+        data = new int[Math.max(1, capacity)];
+    }
+
+    public void add(final int value) {
+        if (size == data.length)
+            data = Arrays.copyOf(data, data.length << 1);
+        data[size++] = value;
+    }
+
+    public int get(final int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        return data[index];
+    }
+
+    public int removeLast() {
+        if (size == 0) throw new IllegalStateException("List is empty");
+        return data[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.board;
+
+/**
+ * Set of cell indices backed by a bitset, for collections of cells which
+ * would otherwise need boxed integers or hashing.
+ */
+public final class IntSet {
+
+    private final long[] bits;
+    private final int capacity;
+    private int size = 0;
+
+    public IntSet(final int capacity) {
+        this.capacity = capacity;
+        bits = new long[(capacity + 63) >>> 6];
+    }
+
+    public boolean add(final int value) {
+        long mask = 1L << value;
+        int word = value >>> 6;
+        if ((bits[word] & mask) != 0) return false;
+
+        bits[word] |= mask;
+        size++;
+        return true;
+    }
+
+    public boolean remove(final int value) {
+        long mask = 1L << value;
+        int word = value >>> 6;
+        if ((bits[word] & mask) == 0) return false;
+
+        bits[word] &= ~mask;
+        size--;
+        return true;
+    }
+
+    public boolean contains(final int value) {
+        return (bits[value >>> 6] & (1L << value)) != 0;
+    }
+
+    // smallest value in the set which is at least "from", or -1 if there is none
+    public int next(final int from) {
+        if (from >= capacity) return -1;
+
+        int word = from >>> 6;
+        long remaining = bits[word] & (-1L << from);
+        while (remaining == 0) {
+            if (++word == bits.length) return -1;
+            remaining = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(remaining);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        for (int x = 0; x < bits.length; x++)
+            bits[x] = 0L;
+        size = 0;
+    }
+
+    public void addAll(final IntList values) {
+        for (int x = 0; x < values.size(); x++)
+            add(values.get(x));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.board;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed adjacency for a board size in compressed sparse row form:
+ * the neighbours of cell {@code i} are
+ * {@code neighbors[offsets[i]] .. neighbors[offsets[i + 1] - 1]}.
+ * Tables are immutable, and those of ordinary sizes are shared between
+ * every board of that size.
+ */
+public final class Neighbors {
+
+    private static final Map<Long, Neighbors> CACHE = new ConcurrentHashMap<>();
+
+    // tables for bigger boards are not kept once their board is gone
+    private static final int MAX_CACHED_CELLS = 1 << 16;
+
+    private final int width;
+    private final int height;
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    private Neighbors(final int width,
+                      final int height) {
+        this.width = width;
+        this.height = height;
+
+        int cells = width * height;
+        offsets = new int[cells + 1];
+
+        // every cell has 8 neighbours, minus those cut off by the edges
+        int total = 0;
+        for (int y = 0; y < height; y++) {
+            int rows = Math.min(height - 1, y + 1) - Math.max(0, y - 1) + 1;
+            for (int x = 0; x < width; x++) {
+                int columns = Math.min(width - 1, x + 1) - Math.max(0, x - 1) + 1;
+                offsets[y * width + x] = total;
+                total += rows * columns - 1;
+            }
+        }
+        offsets[cells] = total;
+
+        neighbors = new int[total];
+        int position = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+                    for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+                        if (nx != x || ny != y)
+                            neighbors[position++] = ny * width + nx;
+                    }
+                }
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // first position of the cell's neighbours in the table
+    public int start(final int index) {
+        return offsets[index];
+    }
+
+    // position just past the cell's last neighbour in the table
+    public int end(final int index) {
+        return offsets[index + 1];
+    }
+
+    public int get(final int position) {
+        return neighbors[position];
+    }
+
+    public int count(final int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    public static Neighbors of(final int width,
+                               final int height) {
+        if ((long) width * height > MAX_CACHED_CELLS)
+            return new Neighbors(width, height);
+
+        return CACHE.computeIfAbsent(
+                ((long) width << 32) | height,
+                key -> new Neighbors(width, height)
+        );
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.replay;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Records a game as it is played. Each action goes into a small ring of
+ * primitive arrays, which is encoded into the growing stream only when
+ * it fills up, so recording a click allocates nothing.
+ */
+public final class Recorder {
+
+    private static final int CAPACITY = 64;
+    // an encoded action takes at most two 10 byte varints
+    private static final int MAX_EVENT_SIZE = 20;
+
+    private final long origin;
+
+    private final long[] times = new long[CAPACITY];
+    private final int[] cells = new int[CAPACITY];
+    private final byte[] actions = new byte[CAPACITY];
+    private int size = 0;
+
+    private ByteBuffer encoded = ByteBuffer.allocate(CAPACITY * 4);
+    private long last;
+    private int events = 0;
+
+    public Recorder() {
+        this(System.nanoTime());
+    }
+
+    // origin: System.nanoTime when the board was shown
+    public Recorder(final long origin) {
+        this.origin = origin;
+        this.last = origin;
+    }
+
+    public void record(final int cell,
+                       final int action) {
+        record(System.nanoTime(), cell, action);
+    }
+
+    public void record(final long time,
+                       final int cell,
+                       final int action) {
+        if (size == CAPACITY) flush();
+
+        times[size] = time;
+        cells[size] = cell;
+        actions[size] = (byte) action;
+        size++;
+    }
+
+    public int getEventCount() {
+        return events + size;
+    }
+
+    /**
+     * @param startTime System.nanoTime when the game's clock started
+     * @param duration  nanoseconds on the game's clock when it ended
+     */
+    public Recording finish(final GameSettings settings,
+                            final long seed,
+                            final int firstClick,
+                            final int result,
+                            final long startTime,
+                            final long duration) {
+        flush();
+        byte[] data = Arrays.copyOf(encoded.array(), encoded.position());
+        return new Recording(settings, seed, firstClick, result,
+                Math.max(0L, startTime - origin), duration, events, data);
+    }
+
+    private void flush() {
+        if (encoded.remaining() < size * MAX_EVENT_SIZE) {
+            int capacity = Math.max(encoded.capacity() << 1, encoded.position() + size * MAX_EVENT_SIZE);
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            encoded.flip();
+            grown.put(encoded);
+            encoded = grown;
+        }
+
+        for (int x = 0; x < size; x++) {
+            // nanoTime never goes backwards within a run
+            Recording.putVarint(encoded, Math.max(0L, times[x] - last));
+            Recording.putVarint(encoded, ((long) cells[x] << Recording.ACTION_BITS) | actions[x]);
+            last = Math.max(last, times[x]);
+        }
+        events += size;
+        size = 0;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.replay;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Everything needed to play a game again: its settings, the seed and
+ * first click its board was generated from, and every action the player
+ * took. Actions are stored as a stream of variable-length integers: for
+ * each, the nanoseconds since the one before, then the cell index and
+ * action code packed together. A click typically takes 6 or 7 bytes.
+ *
+ * <p>Times are measured from when the board was shown. The game's own
+ * clock starts once the first click has generated the board.
+ */
+public final class Recording {
+
+    // action codes
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1;
+    public static final int CHORD = 2;
+    static final int ACTION_BITS = 2;
+
+    // how the game ended
+    public static final int ABANDONED = 0;
+    public static final int WON = 1;
+    public static final int LOST = 2;
+
+    private static final int VERSION = 1;
+
+    private final GameSettings settings;
+    private final long seed;
+    private final int firstClick;
+    private final int result;
+    private final long start;
+    private final long duration;
+    private final int events;
+    private final byte[] data;
+
+    Recording(final GameSettings settings,
+              final long seed,
+              final int firstClick,
+              final int result,
+              final long start,
+              final long duration,
+              final int events,
+              final byte[] data) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.seed = seed;
+        this.firstClick = firstClick;
+        this.result = result;
+        this.start = start;
+        this.duration = duration;
+        this.events = events;
+        this.data = data;
+    }
+
+    public GameSettings getSettings() {
+        return settings;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getFirstClick() {
+        return firstClick;
+    }
+
+    public int getResult() {
+        return result;
+    }
+
+    // nanoseconds from the board being shown to the game's clock starting
+    public long getStart() {
+        return start;
+    }
+
+    // nanoseconds on the game's clock when it ended
+    public long getDuration() {
+        return duration;
+    }
+
+    public int getEventCount() {
+        return events;
+    }
+
+    public Events events() {
+        return new Events();
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 5 * 3 + 8 + 5 + 1 + 10 * 2 + 5 * 2 + data.length);
+        buffer.put((byte) VERSION);
+        putVarint(buffer, settings.getColumns());
+        putVarint(buffer, settings.getRows());
+        putVarint(buffer, settings.getMines());
+        buffer.putLong(seed);
+        putVarint(buffer, firstClick + 1);
+        buffer.put((byte) result);
+        putVarint(buffer, start);
+        putVarint(buffer, duration);
+        putVarint(buffer, events);
+        putVarint(buffer, data.length);
+        buffer.put(data);
+
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public static Recording fromBytes(final ByteBuffer buffer) {
+        int version = buffer.get();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported recording version " + version);
+
+        GameSettings settings = new GameSettings((int) getVarint(buffer), (int) getVarint(buffer), (int) getVarint(buffer));
+        long seed = buffer.getLong();
+        int firstClick = (int) getVarint(buffer) - 1;
+        int result = buffer.get();
+        long start = getVarint(buffer);
+        long duration = getVarint(buffer);
+        int events = (int) getVarint(buffer);
+        byte[] data = new byte[(int) getVarint(buffer)];
+        buffer.get(data);
+        return new Recording(settings, seed, firstClick, result, start, duration, events, data);
+    }
+
+    static void putVarint(final ByteBuffer buffer,
+                          long value) {
+        while ((value & ~0x7FL) != 0L) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarint(final ByteBuffer buffer) {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads the actions back in order. Reused for every action, so a
+     * replay doesn't allocate per click either.
+     */
+    public final class Events {
+
+        private final ByteBuffer buffer = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        private int remaining = events;
+        private long time = 0L;
+        private int cell = -1;
+        private int action = -1;
+
+        public boolean next() {
+            if (remaining == 0) return false;
+            remaining--;
+
+            time += getVarint(buffer);
+            long packed = getVarint(buffer);
+            cell = (int) (packed >>> ACTION_BITS);
+            action = (int) (packed & ((1 << ACTION_BITS) - 1));
+            return true;
+        }
+
+        // nanoseconds from the board being shown
+        public long getTime() {
+            return time;
+        }
+
+        public int getCell() {
+            return cell;
+        }
+
+        public int getAction() {
+            return action;
+        }
+    }
+}
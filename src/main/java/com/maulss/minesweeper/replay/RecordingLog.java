@@ -0,0 +1,101 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of recordings, each stored as its length followed by
+ * its bytes. A recording cut short by a crash is dropped the next time
+ * the file is opened.
+ */
+public final class RecordingLog implements Closeable {
+
+    private final FileChannel channel;
+
+    public RecordingLog(final Path path) throws IOException {
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        channel.truncate(validLength(channel));
+        channel.position(channel.size());
+    }
+
+    public void append(final Recording recording) throws IOException {
+        byte[] bytes = recording.toBytes();
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    public void clear() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public static List<Recording> read(final Path path) throws IOException {
+        List<Recording> recordings = new ArrayList<>();
+        if (!Files.exists(path)) return recordings;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) break;
+
+            ByteBuffer record = buffer.slice();
+            record.limit(length);
+            buffer.position(buffer.position() + length);
+            try {
+                recordings.add(Recording.fromBytes(record));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                // unreadable, but its length still leads to the next one
+            }
+        }
+        return recordings;
+    }
+
+    // length of the complete records at the start of the file
+    private static long validLength(final FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        long position = 0L;
+        long size = channel.size();
+        while (size - position >= 4) {
+            header.clear();
+            if (channel.read(header, position) < 4) break;
+            header.flip();
+
+            int length = header.getInt();
+            if (length < 0 || length > size - position - 4) break;
+            position += 4 + length;
+        }
+        return position;
+    }
+}
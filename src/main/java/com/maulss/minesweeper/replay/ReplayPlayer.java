@@ -0,0 +1,84 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.replay;
+
+import com.maulss.minesweeper.MineField;
+import com.maulss.minesweeper.MineGame;
+import javafx.animation.AnimationTimer;
+import javafx.scene.input.MouseButton;
+
+/**
+ * Plays a recording into a game on screen by clicking its cells at the
+ * recorded moments, scaled by a speed, so the game's own rules decide
+ * what every click does. Checked once per frame, and stops once the
+ * recording runs out or the game is finished or replaced.
+ */
+public final class ReplayPlayer extends AnimationTimer {
+
+    public static final double REAL_TIME = 1d;
+    public static final double INSTANT = Double.POSITIVE_INFINITY;
+
+    private final MineGame game;
+    private final MineField field;
+    private final Recording.Events events;
+    private final double speed;
+
+    private boolean pending;
+    private final long first;
+    private long began = -1L;
+
+    public ReplayPlayer(final MineGame game,
+                        final Recording recording,
+                        final double speed) {
+        if (!(speed > 0d)) throw new IllegalArgumentException("Speed must be positive");
+
+        this.game = game;
+        this.field = game.getField();
+        this.events = recording.events();
+        this.speed = speed;
+
+        pending = events.next();
+        first = pending ? events.getTime() : 0L;
+    }
+
+    public void play() {
+        if (speed == INSTANT) {
+            while (pending && !game.hasFinished())
+                click();
+        } else {
+            start();
+        }
+    }
+
+    @Override
+    public void handle(final long now) {
+        if (began == -1L) began = now;
+
+        // recorded time reached at this speed, from the first click on
+        double elapsed = (now - began) * speed;
+        while (pending && !game.hasFinished() && events.getTime() - first <= elapsed)
+            click();
+
+        if (!pending || game.hasFinished()) stop();
+    }
+
+    private void click() {
+        field.click(events.getCell(), button(events.getAction()));
+        pending = events.next();
+    }
+
+    private static MouseButton button(final int action) {
+        switch (action) {
+            case Recording.REVEAL:
+                return MouseButton.PRIMARY;
+            case Recording.FLAG:
+                return MouseButton.SECONDARY;
+            case Recording.CHORD:
+                return MouseButton.MIDDLE;
+            default:
+                return MouseButton.NONE;
+        }
+    }
+}
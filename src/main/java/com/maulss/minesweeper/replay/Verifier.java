@@ -0,0 +1,173 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.replay;
+
+import com.maulss.minesweeper.board.Board;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays recordings again on headless boards, following the same rules as
+ * {@link com.maulss.minesweeper.MineField#click}, and checks that every
+ * action was one the game would have accepted, that the game ended the
+ * way it was recorded, and that its recorded time fits the clicks. Batches
+ * are verified on every core, sharing nothing between recordings.
+ */
+public final class Verifier {
+
+    // time between the final click and the clock stopping, at most
+    public static final long TOLERANCE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public enum Result {
+        VALID,
+        WRONG_FIRST_CLICK,
+        INVALID_ACTION,
+        ACTION_AFTER_END,
+        WRONG_RESULT,
+        WRONG_TIME
+    }
+
+    private Verifier() { }
+
+    public static Result verify(final Recording recording) {
+        Board board = new Board(recording.getSettings());
+        Recording.Events events = recording.events();
+
+        long first = -1L;
+        long end = -1L;
+        long last = 0L;
+        while (events.next()) {
+            int cell = events.getCell();
+            last = events.getTime();
+            if (board.isFinished()) return Result.ACTION_AFTER_END;
+            if (cell < 0 || cell >= board.getCells()) return Result.INVALID_ACTION;
+
+            // only chords are made on revealed cells
+            int action = events.getAction();
+            if (board.isRevealed(cell) != (action == Recording.CHORD)) return Result.INVALID_ACTION;
+
+            switch (action) {
+                case Recording.REVEAL:
+                    if (board.isFlagged(cell)) return Result.INVALID_ACTION;
+                    if (!board.isGenerated()) {
+                        if (cell != recording.getFirstClick()) return Result.WRONG_FIRST_CLICK;
+                        board.generate(cell, recording.getSeed());
+                        first = last;
+                    }
+                    board.reveal(cell);
+                    break;
+                case Recording.FLAG:
+                    board.toggleFlag(cell);
+                    break;
+                case Recording.CHORD:
+                    if (!board.canChord(cell)) return Result.INVALID_ACTION;
+                    board.chord(cell);
+                    break;
+                default:
+                    return Result.INVALID_ACTION;
+            }
+
+            if (board.isFinished()) end = last;
+        }
+
+        int result = board.isWon() ? Recording.WON
+                : board.isLost() ? Recording.LOST
+                : Recording.ABANDONED;
+        if (result != recording.getResult()) return Result.WRONG_RESULT;
+
+        // the clock starts once the first click has generated the board, and
+        // stops just after the click which ended the game
+        long clockEnd = recording.getStart() + recording.getDuration();
+        if (first > recording.getStart() || last > clockEnd) return Result.WRONG_TIME;
+        if (end != -1L && clockEnd - end > TOLERANCE_NANOS) return Result.WRONG_TIME;
+
+        return Result.VALID;
+    }
+
+    public static Report verifyAll(final List<Recording> recordings) {
+        long start = System.nanoTime();
+        Tally tally = recordings.parallelStream()
+                .map(Verifier::verify)
+                .collect(Tally::new, Tally::add, Tally::add);
+
+        return new Report(tally, System.nanoTime() - start);
+    }
+
+    static final class Tally {
+
+        final long[] counts = new long[Result.values().length];
+
+        void add(final Result result) {
+            counts[result.ordinal()]++;
+        }
+
+        void add(final Tally other) {
+            for (int x = 0; x < counts.length; x++)
+                counts[x] += other.counts[x];
+        }
+    }
+
+    public static final class Report {
+
+        private final long[] counts;
+        private final long nanos;
+
+        Report(final Tally tally,
+               final long nanos) {
+            this.counts = tally.counts;
+            this.nanos = nanos;
+        }
+
+        public long getCount(final Result result) {
+            return counts[result.ordinal()];
+        }
+
+        public long getRecordings() {
+            long total = 0L;
+            for (long count : counts) total += count;
+            return total;
+        }
+
+        public boolean isValid() {
+            return getCount(Result.VALID) == getRecordings();
+        }
+
+        public double getRecordingsPerSecond() {
+            return nanos == 0 ? 0d : getRecordings() * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format("%d recordings, %.0f recordings/s",
+                    getRecordings(), getRecordingsPerSecond()));
+            for (Result result : Result.values())
+                if (getCount(result) > 0)
+                    builder.append(String.format("%n  %-18s %d", result, getCount(result)));
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Usage: recordings file
+     * Verifies every recording in the file, such as games.replays kept
+     * beside the stats.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0)
+            throw new IllegalArgumentException("The recordings file to verify is given as the first argument");
+        Path path = Paths.get(args[0]);
+        List<Recording> recordings = RecordingLog.read(path);
+
+        System.out.println("Verifying " + path + " on "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        Report report = verifyAll(recordings);
+        System.out.println(report);
+        if (!report.isValid()) System.exit(1);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.simulation;
+
+import com.maulss.minesweeper.GameSettings;
+import com.maulss.minesweeper.board.Board;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+/**
+ * Plays many headless games with a {@link Strategy} on every core and
+ * reports how often it wins. Every game gets its own generator derived
+ * from the simulation seed and its number, so results do not depend on
+ * how games are spread over threads, and threads share nothing mutable.
+ */
+public final class Simulation {
+
+    // what the board is called in the report, such as its preset
+    private final String name;
+    private final GameSettings settings;
+    private final Strategy strategy;
+    private final long games;
+    private final long seed;
+
+    public Simulation(final String name,
+                      final GameSettings settings,
+                      final Strategy strategy,
+                      final long games,
+                      final long seed) {
+        this.name = name;
+        this.settings = settings;
+        this.strategy = strategy;
+        this.games = games;
+        this.seed = seed;
+    }
+
+    public Report run() {
+        long start = System.nanoTime();
+        Tally tally = LongStream.range(0, games)
+                .parallel()
+                .mapToObj(this::play)
+                .collect(Tally::new, Tally::add, Tally::add);
+
+        return new Report(name, settings, strategy, tally, System.nanoTime() - start);
+    }
+
+    private Tally play(final long game) {
+        SplittableRandom random = new SplittableRandom(seed ^ (game * 0x9E3779B97F4A7C15L));
+
+        Board board = new Board(settings);
+        int firstClick = random.nextInt(board.getCells());
+        board.generate(firstClick, random.nextLong());
+
+        Strategy.Player player = strategy.newGame(board, random);
+        player.revealed(board.reveal(firstClick));
+
+        Tally tally = new Tally();
+        int guesses = 0;
+        while (!board.isFinished()) {
+            int cell = player.next();
+            if (player.guessed()) guesses++;
+            player.revealed(board.reveal(cell));
+        }
+
+        tally.games = 1;
+        tally.wins = board.isWon() ? 1 : 0;
+        tally.guesses = guesses;
+        return tally;
+    }
+
+    static final class Tally {
+
+        long games = 0L;
+        long wins = 0L;
+        long guesses = 0L;
+
+        void add(final Tally game) {
+            games += game.games;
+            wins += game.wins;
+            guesses += game.guesses;
+        }
+    }
+
+    public static final class Report {
+
+        private final String name;
+        private final GameSettings settings;
+        private final Strategy strategy;
+        private final long games;
+        private final long wins;
+        private final long guesses;
+        private final long nanos;
+
+        Report(final String name,
+               final GameSettings settings,
+               final Strategy strategy,
+               final Tally tally,
+               final long nanos) {
+            this.name = name;
+            this.settings = settings;
+            this.strategy = strategy;
+            this.games = tally.games;
+            this.wins = tally.wins;
+            this.guesses = tally.guesses;
+            this.nanos = nanos;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0d : (double) wins / games;
+        }
+
+        public double getGuessesPerGame() {
+            return games == 0 ? 0d : (double) guesses / games;
+        }
+
+        public double getGamesPerSecond() {
+            return nanos == 0 ? 0d : games * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-14s %4dx%-4d %6d mines  %-12s %10d games  %6.2f%% won  %5.2f guesses/game  %10.0f games/s",
+                    name,
+                    settings.getColumns(),
+                    settings.getRows(),
+                    settings.getMines(),
+                    strategy.getName(),
+                    games,
+                    getWinRate() * 100,
+                    getGuessesPerGame(),
+                    getGamesPerSecond());
+        }
+    }
+
+    /**
+     * Usage: [games] [columns x rows x mines ...]
+     * Runs every preset, plus any custom boards given, with each strategy.
+     */
+    public static void main(final String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000L;
+
+        // by name, as the density of a preset doesn't always tell which one it is
+        Map<GameSettings, String> boards = new LinkedHashMap<>();
+        boards.put(GameSettings.BEGINNER, "Beginner");
+        boards.put(GameSettings.INTERMEDIATE, "Intermediate");
+        boards.put(GameSettings.EXPERT, "Expert");
+        boards.put(GameSettings.PROFESSIONAL, "Professional");
+        for (int x = 1; x < args.length; x++) {
+            String[] size = args[x].toLowerCase().split("x");
+            if (size.length != 3)
+                throw new IllegalArgumentException("Custom boards are given as columns x rows x mines, e.g. 50x50x500");
+            boards.putIfAbsent(new GameSettings(
+                    Integer.parseInt(size[0]),
+                    Integer.parseInt(size[1]),
+                    Integer.parseInt(size[2])
+            ), "Custom");
+        }
+
+        long seed = new SplittableRandom().nextLong();
+        System.out.println("Seed " + seed + ", " + games + " games per board and strategy on "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        for (Map.Entry<GameSettings, String> board : boards.entrySet()) {
+            for (Strategy strategy : new Strategy[] {Strategies.REFERENCE, Strategies.RANDOM_GUESS}) {
+                System.out.println(new Simulation(board.getValue(), board.getKey(), strategy, games, seed).run());
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.simulation;
+
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.board.IntList;
+import com.maulss.minesweeper.solver.ProbabilityEngine;
+import com.maulss.minesweeper.solver.Solver;
+
+import java.util.SplittableRandom;
+
+public final class Strategies {
+
+    // opens every certainly safe cell, otherwise the cell least likely to be a mine
+    public static final Strategy REFERENCE = new Strategy() {
+
+        @Override
+        public String getName() {
+            return "Reference";
+        }
+
+        @Override
+        public Player newGame(final Board board,
+                              final SplittableRandom random) {
+            Solver solver = new Solver(board);
+            ProbabilityEngine probabilities = new ProbabilityEngine(solver);
+            return new SolverPlayer(solver) {
+                @Override
+                int guess() {
+                    probabilities.compute();
+                    return probabilities.safest();
+                }
+            };
+        }
+    };
+
+    // opens every certainly safe cell, otherwise any cell not known to be a mine
+    public static final Strategy RANDOM_GUESS = new Strategy() {
+
+        @Override
+        public String getName() {
+            return "Random guess";
+        }
+
+        @Override
+        public Player newGame(final Board board,
+                              final SplittableRandom random) {
+            Solver solver = new Solver(board);
+            return new SolverPlayer(solver) {
+                @Override
+                int guess() {
+                    int cell;
+                    do {
+                        cell = random.nextInt(board.getCells());
+                    } while (board.isRevealed(cell) || solver.isMine(cell));
+                    return cell;
+                }
+            };
+        }
+    };
+
+    private abstract static class SolverPlayer implements Strategy.Player {
+
+        private final Solver solver;
+        private boolean guessed = false;
+
+        SolverPlayer(final Solver solver) {
+            this.solver = solver;
+        }
+
+        abstract int guess();
+
+        @Override
+        public int next() {
+            solver.solve();
+            int safe = solver.nextSafe();
+            guessed = safe == -1;
+            return guessed ? guess() : safe;
+        }
+
+        @Override
+        public boolean guessed() {
+            return guessed;
+        }
+
+        @Override
+        public void revealed(final IntList changed) {
+            solver.revealed(changed);
+        }
+    }
+
+    private Strategies() { }
+}
@@ -0,0 +1,35 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.simulation;
+
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.board.IntList;
+
+import java.util.SplittableRandom;
+
+/**
+ * A way of playing minesweeper. The simulation asks for a new player for
+ * every game, so players may keep state but are never shared between
+ * threads.
+ */
+public interface Strategy {
+
+    String getName();
+
+    Player newGame(final Board board,
+                   final SplittableRandom random);
+
+    interface Player {
+
+        // the cell to reveal next
+        int next();
+
+        // whether the cell last returned by next() was a guess
+        boolean guessed();
+
+        // called with the cells changed by each reveal, including the first click
+        void revealed(final IntList changed);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.solver;
+
+import com.maulss.minesweeper.board.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An independent part of the frontier: hidden cells which are linked to
+ * each other through the numbers next to them, and no other cells. All
+ * ways of placing mines among the cells are counted once, grouped by how
+ * many mines they use.
+ */
+final class Component {
+
+    private final int[] cells;
+
+    // cells next to exactly the same numbers are interchangeable, so the
+    // search assigns a mine count to each such box instead of each cell
+    private final int[] boxOf;
+    private final int[] boxSizes;
+    private final int[][] boxConstraints;
+    private final int[] remaining;
+    private final double[][] choose;
+
+    // solutions[k]: solutions using k mines, cellMines[k][v]: those where cell v is a mine
+    private final double[] solutions;
+    private final double[][] boxMines;
+    private double[][] cellMines = null;
+
+    // state of the running search
+    private final int[] boxMinesPlaced;
+    private final int[] placed;
+    private final int[] unassigned;
+
+    /**
+     * @param cells           hidden cells, in the order they are assigned
+     * @param constraintCells for each number, the positions in cells next to it
+     * @param remaining       for each number, how many of those cells are mines
+     */
+    Component(final int[] cells,
+              final int[][] constraintCells,
+              final int[] remaining) {
+        this.cells = cells;
+        this.remaining = remaining;
+
+        int length = cells.length;
+        int constraints = constraintCells.length;
+
+        // numbers next to each cell, as a sorted list used to find its box
+        int[][] cellConstraints = new int[length][];
+        int[] counts = new int[length];
+        for (int[] constraint : constraintCells)
+            for (int cell : constraint)
+                counts[cell]++;
+        for (int x = 0; x < length; x++)
+            cellConstraints[x] = new int[counts[x]];
+        for (int c = constraints - 1; c >= 0; c--)
+            for (int cell : constraintCells[c])
+                cellConstraints[cell][--counts[cell]] = c;
+
+        boxOf = new int[length];
+        Map<Key, Integer> boxes = new HashMap<>();
+        IntList sizes = new IntList();
+        List<int[]> boxList = new ArrayList<>();
+        for (int x = 0; x < length; x++) {
+            Key key = new Key(cellConstraints[x]);
+            Integer box = boxes.get(key);
+            if (box == null) {
+                box = sizes.size();
+                boxes.put(key, box);
+                sizes.add(0);
+                boxList.add(cellConstraints[x]);
+            }
+            boxOf[x] = box;
+        }
+
+        boxSizes = new int[sizes.size()];
+        for (int x = 0; x < length; x++) boxSizes[boxOf[x]]++;
+        boxConstraints = boxList.toArray(new int[0][]);
+
+        int largest = 0;
+        for (int size : boxSizes) largest = Math.max(largest, size);
+        choose = new double[largest + 1][];
+        for (int n = 0; n <= largest; n++) {
+            choose[n] = new double[n + 1];
+            choose[n][0] = 1d;
+            for (int k = 1; k <= n; k++)
+                choose[n][k] = choose[n][k - 1] * (n - k + 1) / k;
+        }
+
+        solutions = new double[length + 1];
+        boxMines = new double[length + 1][boxSizes.length];
+        boxMinesPlaced = new int[boxSizes.length];
+        placed = new int[constraints];
+        unassigned = new int[constraints];
+        for (int c = 0; c < constraints; c++)
+            unassigned[c] = constraintCells[c].length;
+
+        search(0, 0, 1d);
+        normalize();
+    }
+
+    private void search(final int box,
+                        final int mines,
+                        final double weight) {
+        if (box == boxSizes.length) {
+            solutions[mines] += weight;
+            double[] counts = boxMines[mines];
+            for (int x = 0; x < boxSizes.length; x++)
+                counts[x] += weight * boxMinesPlaced[x];
+            return;
+        }
+
+        int size = boxSizes[box];
+        int[] constraints = boxConstraints[box];
+        for (int c : constraints) unassigned[c] -= size;
+
+        for (int value = 0; value <= size; value++) {
+            boolean valid = true;
+            for (int c : constraints) {
+                if (placed[c] + value > remaining[c] || placed[c] + value + unassigned[c] < remaining[c]) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (!valid) continue;
+
+            for (int c : constraints) placed[c] += value;
+            boxMinesPlaced[box] = value;
+            search(box + 1, mines + value, weight * choose[size][value]);
+            for (int c : constraints) placed[c] -= value;
+        }
+
+        boxMinesPlaced[box] = 0;
+        for (int c : constraints) unassigned[c] += size;
+    }
+
+    // counts only matter relative to each other, keep them far from overflowing
+    private void normalize() {
+        double max = 0d;
+        for (double count : solutions) max = Math.max(max, count);
+        if (max == 0d) return;
+
+        for (int k = 0; k < solutions.length; k++) {
+            solutions[k] /= max;
+            for (int x = 0; x < boxSizes.length; x++)
+                boxMines[k][x] /= max;
+        }
+    }
+
+    int[] getCells() {
+        return cells;
+    }
+
+    double[] getSolutions() {
+        return solutions;
+    }
+
+    double[][] getCellMines() {
+        if (cellMines != null) return cellMines;
+
+        // every cell of a box is equally likely to hold its mines
+        cellMines = new double[solutions.length][cells.length];
+        for (int k = 0; k < solutions.length; k++)
+            for (int x = 0; x < cells.length; x++)
+                cellMines[k][x] = boxMines[k][boxOf[x]] / boxSizes[boxOf[x]];
+        return cellMines;
+    }
+
+    /**
+     * Array of ints usable as a map key: identifies a component by its
+     * cells and the numbers around them, and a box by its numbers.
+     */
+    static final class Key {
+
+        private final int[] values;
+        private final int hash;
+
+        Key(final int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(values, ((Key) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
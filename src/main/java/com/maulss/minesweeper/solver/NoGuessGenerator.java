@@ -0,0 +1,119 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.solver;
+
+import com.maulss.minesweeper.GameSettings;
+import com.maulss.minesweeper.board.Board;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds boards which can be solved from the first click by logic alone.
+ * Candidate seeds are generated and played out by a {@link Solver} on
+ * every thread of a fork-join pool until one of them clears its board;
+ * the others then stop. If nothing is found in time, the seed it was
+ * given is the result so the game can start with an ordinary board.
+ */
+public final class NoGuessGenerator {
+
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1500L;
+
+    private final ForkJoinPool pool;
+    private final long timeout;
+    private final TimeUnit unit;
+
+    // searches on a pool of its own with a worker for every core
+    public NoGuessGenerator() {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors()),
+                DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public NoGuessGenerator(final ForkJoinPool pool,
+                            final long timeout,
+                            final TimeUnit unit) {
+        this.pool = pool;
+        this.timeout = timeout;
+        this.unit = unit;
+    }
+
+    // blocks until a board is found or the time is up
+    public long find(final GameSettings settings,
+                     final int firstClick,
+                     final long seed) {
+        try {
+            return findAsync(settings, firstClick, seed).get();
+        } catch (ExecutionException e) {
+            return seed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return seed;
+        }
+    }
+
+    /**
+     * Searches on the pool without blocking the caller. Completes with a
+     * solvable seed, or with the given seed once every worker has run out
+     * of time. Each worker's time starts when it does, so a search queued
+     * behind another still gets all of it. Cancelling the future stops
+     * the workers.
+     */
+    public CompletableFuture<Long> findAsync(final GameSettings settings,
+                                             final int firstClick,
+                                             final long seed) {
+        int width = settings.getColumns();
+        int height = settings.getRows();
+        int mines = settings.getMines();
+
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long nanos = unit.toNanos(timeout);
+        AtomicInteger searching = new AtomicInteger(pool.getParallelism());
+
+        for (int worker = 0; worker < pool.getParallelism(); worker++) {
+            SplittableRandom random = seeds.split();
+            pool.execute(() -> {
+                long deadline = System.nanoTime() + nanos;
+                try {
+                    while (!result.isDone() && System.nanoTime() < deadline) {
+                        long candidate = random.nextLong();
+                        if (isSolvable(width, height, mines, firstClick, candidate))
+                            result.complete(candidate);
+                    }
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    // the last worker to give up keeps the original seed
+                    if (searching.decrementAndGet() == 0)
+                        result.complete(seed);
+                }
+            });
+        }
+        return result;
+    }
+
+    public static boolean isSolvable(final int width,
+                                     final int height,
+                                     final int mines,
+                                     final int firstClick,
+                                     final long seed) {
+        Board board = new Board(width, height, mines);
+        board.generate(firstClick, seed);
+
+        Solver solver = new Solver(board);
+        solver.revealed(board.reveal(firstClick));
+        while (!board.isFinished()) {
+            solver.solve();
+            int safe = solver.nextSafe();
+            if (safe == -1) return false;
+            solver.revealed(board.reveal(safe));
+        }
+        return board.isWon();
+    }
+}
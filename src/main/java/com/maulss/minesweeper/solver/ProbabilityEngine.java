@@ -0,0 +1,327 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.solver;
+
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.board.IntList;
+import com.maulss.minesweeper.board.Neighbors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Exact mine probabilities for every hidden cell, given what the player
+ * can see. The frontier is split into independent components which are
+ * each enumerated by backtracking; the components and the cells away from
+ * the frontier are then combined, weighting every way of splitting the
+ * remaining mines between them by the number of boards it allows.
+ *
+ * <p>Component results are cached by their cells and numbers, so after
+ * a reveal only the components it touched are enumerated again.
+ */
+public final class ProbabilityEngine {
+
+    private final Solver solver;
+    private final Board board;
+    private final Neighbors neighbors;
+
+    private final double[] probabilities;
+    private final double[] logFactorials;
+
+    // union-find over cells, per-cell position within its component and
+    // the component which last visited a number
+    private final int[] parent;
+    private final int[] position;
+    private final int[] visited;
+    private int visit = 0;
+
+    private Map<Component.Key, Component> cache = new HashMap<>();
+
+    public ProbabilityEngine(final Solver solver) {
+        this.solver = Objects.requireNonNull(solver, "solver");
+        board = solver.getBoard();
+        neighbors = board.getNeighbors();
+
+        int cells = board.getCells();
+        probabilities = new double[cells];
+        parent = new int[cells];
+        position = new int[cells];
+        visited = new int[cells];
+
+        logFactorials = new double[cells + 1];
+        for (int x = 1; x <= cells; x++)
+            logFactorials[x] = logFactorials[x - 1] + Math.log(x);
+    }
+
+    public void compute() {
+        solver.solve();
+
+        int cells = board.getCells();
+        IntList frontier = new IntList();
+        int knownMines = 0;
+        int interior = 0;
+
+        for (int index = 0; index < cells; index++) {
+            parent[index] = index;
+            if (board.isRevealed(index)) {
+                probabilities[index] = board.isMine(index) ? 1d : 0d;
+            } else if (solver.isMine(index)) {
+                probabilities[index] = 1d;
+                knownMines++;
+            } else if (solver.isSafe(index)) {
+                probabilities[index] = 0d;
+            } else if (isFrontier(index)) {
+                frontier.add(index);
+            } else {
+                interior++;
+            }
+        }
+
+        // cells sharing a number belong to the same component
+        for (int x = 0; x < frontier.size(); x++) {
+            int cell = frontier.get(x);
+            for (int n = neighbors.start(cell), end = neighbors.end(cell); n < end; n++) {
+                int number = neighbors.get(n);
+                if (!isNumber(number)) continue;
+
+                for (int m = neighbors.start(number), last = neighbors.end(number); m < last; m++) {
+                    int other = neighbors.get(m);
+                    if (isUnknown(other)) union(cell, other);
+                }
+            }
+        }
+
+        Map<Integer, IntList> groups = new HashMap<>();
+        for (int x = 0; x < frontier.size(); x++) {
+            int cell = frontier.get(x);
+            groups.computeIfAbsent(find(cell), root -> new IntList()).add(cell);
+        }
+
+        Map<Component.Key, Component> reused = new HashMap<>();
+        List<Component> components = new ArrayList<>(groups.size());
+        for (IntList group : groups.values()) {
+            Component component = component(group, reused);
+            components.add(component);
+        }
+        cache = reused;
+
+        combine(components, board.getMines() - knownMines, interior);
+    }
+
+    private Component component(final IntList group,
+                                final Map<Component.Key, Component> reused) {
+        // order cells breadth-first through their numbers so the search prunes early
+        int[] cells = new int[group.size()];
+        visit++;
+        for (int x = 0; x < cells.length; x++) position[group.get(x)] = -1;
+
+        int length = 0;
+        IntList numbers = new IntList();
+        cells[length++] = group.get(0);
+        position[group.get(0)] = 0;
+        for (int head = 0; head < length; head++) {
+            int cell = cells[head];
+            for (int n = neighbors.start(cell), end = neighbors.end(cell); n < end; n++) {
+                int number = neighbors.get(n);
+                if (!isNumber(number) || visited[number] == visit) continue;
+                visited[number] = visit;
+                numbers.add(number);
+
+                for (int m = neighbors.start(number), last = neighbors.end(number); m < last; m++) {
+                    int other = neighbors.get(m);
+                    if (isUnknown(other) && position[other] == -1) {
+                        position[other] = length;
+                        cells[length++] = other;
+                    }
+                }
+            }
+        }
+
+        int[][] constraintCells = new int[numbers.size()][];
+        int[] remaining = new int[numbers.size()];
+        for (int c = 0; c < numbers.size(); c++) {
+            int number = numbers.get(c);
+            IntList around = new IntList(8);
+            int mines = board.getNumber(number);
+            for (int n = neighbors.start(number), end = neighbors.end(number); n < end; n++) {
+                int other = neighbors.get(n);
+                if (isUnknown(other)) around.add(position[other]);
+                else if (!board.isRevealed(other) && solver.isMine(other)) mines--;
+            }
+            constraintCells[c] = around.toArray();
+            remaining[c] = mines;
+        }
+
+        Component.Key key = key(cells, numbers, remaining);
+        Component component = cache.get(key);
+        if (component == null) component = reused.get(key);
+        if (component == null) component = new Component(cells, constraintCells, remaining);
+
+        reused.put(key, component);
+        return component;
+    }
+
+    private void combine(final List<Component> components,
+                         final int mines,
+                         final int interior) {
+        int count = components.size();
+
+        // prefix[i]: mine count distribution of components before i, suffix[i]: from i on
+        double[][] prefix = new double[count + 1][];
+        double[][] suffix = new double[count + 1][];
+        prefix[0] = new double[] {1d};
+        suffix[count] = new double[] {1d};
+        for (int i = 0; i < count; i++)
+            prefix[i + 1] = convolve(prefix[i], components.get(i).getSolutions());
+        for (int i = count - 1; i >= 0; i--)
+            suffix[i] = convolve(components.get(i).getSolutions(), suffix[i + 1]);
+
+        // weight of leaving "mines - k" mines to the interior, scaled to avoid overflow
+        double[] weights = new double[prefix[count].length];
+        double maxLog = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < weights.length; k++)
+            if (mines - k >= 0 && mines - k <= interior)
+                maxLog = Math.max(maxLog, logChoose(interior, mines - k));
+        for (int k = 0; k < weights.length; k++)
+            weights[k] = mines - k >= 0 && mines - k <= interior
+                    ? Math.exp(logChoose(interior, mines - k) - maxLog)
+                    : 0d;
+
+        double total = 0d;
+        double interiorMines = 0d;
+        double[] all = prefix[count];
+        for (int k = 0; k < all.length; k++) {
+            double weight = all[k] * weights[k];
+            total += weight;
+            interiorMines += weight * (mines - k);
+        }
+
+        double interiorProbability;
+        if (total <= 0d) {
+            // contradicted by wrong flags, fall back to the plain density
+            interiorProbability = Math.max(0d, Math.min(1d, (double) mines / Math.max(1, interior)));
+            for (Component component : components)
+                for (int cell : component.getCells())
+                    probabilities[cell] = interiorProbability;
+        } else {
+            interiorProbability = interior == 0 ? 0d : interiorMines / total / interior;
+
+            for (int i = 0; i < count; i++) {
+                Component component = components.get(i);
+                double[] others = convolve(prefix[i], suffix[i + 1]);
+                double[][] cellMines = component.getCellMines();
+                int[] cells = component.getCells();
+
+                double[] cellWeights = new double[cells.length];
+                for (int k = 0; k < cellMines.length; k++) {
+                    for (int rest = 0; rest < others.length; rest++) {
+                        double weight = others[rest] * weights[k + rest];
+                        if (weight == 0d) continue;
+                        for (int v = 0; v < cells.length; v++)
+                            cellWeights[v] += cellMines[k][v] * weight;
+                    }
+                }
+                for (int v = 0; v < cells.length; v++)
+                    probabilities[cells[v]] = cellWeights[v] / total;
+            }
+        }
+
+        for (int index = 0; index < board.getCells(); index++)
+            if (isUnknown(index) && !isFrontier(index))
+                probabilities[index] = interiorProbability;
+    }
+
+    public double getProbability(final int index) {
+        return probabilities[index];
+    }
+
+    // the hidden, unflagged cell least likely to be a mine, or -1 if there is none
+    public int safest() {
+        int best = -1;
+        for (int index = 0; index < board.getCells(); index++) {
+            if (board.isRevealed(index) || board.isFlagged(index)) continue;
+            if (best == -1 || probabilities[index] < probabilities[best])
+                best = index;
+        }
+        return best;
+    }
+
+    private boolean isUnknown(final int index) {
+        return !board.isRevealed(index) && !solver.isMine(index) && !solver.isSafe(index);
+    }
+
+    private boolean isNumber(final int index) {
+        return board.isRevealed(index) && !board.isMine(index);
+    }
+
+    private boolean isFrontier(final int index) {
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++)
+            if (isNumber(neighbors.get(n))) return true;
+        return false;
+    }
+
+    private double logChoose(final int n,
+                             final int k) {
+        return logFactorials[n] - logFactorials[k] - logFactorials[n - k];
+    }
+
+    private int find(final int index) {
+        int root = index;
+        while (parent[root] != root) root = parent[root];
+
+        // path compression
+        int current = index;
+        while (parent[current] != root) {
+            int next = parent[current];
+            parent[current] = root;
+            current = next;
+        }
+        return root;
+    }
+
+    private void union(final int a,
+                       final int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) parent[rootA] = rootB;
+    }
+
+    private static Component.Key key(final int[] cells,
+                                     final IntList numbers,
+                                     final int[] remaining) {
+        int[] sortedCells = cells.clone();
+        Arrays.sort(sortedCells);
+
+        // numbers paired with their remaining mines, sorted by number
+        long[] pairs = new long[numbers.size()];
+        for (int c = 0; c < pairs.length; c++)
+            pairs[c] = ((long) numbers.get(c) << 32) | remaining[c];
+        Arrays.sort(pairs);
+
+        int[] values = new int[sortedCells.length + 1 + pairs.length * 2];
+        System.arraycopy(sortedCells, 0, values, 0, sortedCells.length);
+        values[sortedCells.length] = -1;
+        for (int c = 0; c < pairs.length; c++) {
+            values[sortedCells.length + 1 + c * 2] = (int) (pairs[c] >>> 32);
+            values[sortedCells.length + 2 + c * 2] = (int) pairs[c];
+        }
+        return new Component.Key(values);
+    }
+
+    private static double[] convolve(final double[] a,
+                                     final double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int x = 0; x < a.length; x++) {
+            if (a[x] == 0d) continue;
+            for (int y = 0; y < b.length; y++)
+                result[x + y] += a[x] * b[y];
+        }
+        return result;
+    }
+}
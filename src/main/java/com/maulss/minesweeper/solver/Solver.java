@@ -0,0 +1,226 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.solver;
+
+import com.maulss.minesweeper.board.Board;
+import com.maulss.minesweeper.board.IntList;
+import com.maulss.minesweeper.board.IntSet;
+import com.maulss.minesweeper.board.Neighbors;
+
+import java.util.Objects;
+
+/**
+ * Deduces which hidden cells are certainly safe and which are certainly
+ * mines from what a player can see: revealed numbers and flags, which
+ * are trusted to be mines. Only the frontier is looked at, and after a
+ * reveal only the numbers next to the changed cells are re-examined.
+ *
+ * <p>Each revealed number is a constraint "r of these u hidden cells are
+ * mines". A constraint is solved on its own when r is 0 or u, and pairs
+ * of overlapping constraints A and B are compared: if B's mines outside
+ * of A account for all of B's excess over A, the rest of B is mines and
+ * the rest of A is safe. Subset and superset reductions are the special
+ * cases where one side is empty.
+ */
+public final class Solver {
+
+    private final Board board;
+    private final Neighbors neighbors;
+
+    private final IntSet safe;
+    private final IntSet mines;
+
+    // revealed numbers whose constraint may yield something new
+    private final IntList queue = new IntList();
+    private final IntSet queued;
+
+    // scratch space, so solving doesn't allocate
+    private final int[] unknownA = new int[8];
+    private final int[] unknownB = new int[8];
+    private final int[] nearby = new int[24];
+
+    public Solver(final Board board) {
+        this.board = Objects.requireNonNull(board, "board");
+        neighbors = board.getNeighbors();
+
+        int cells = board.getCells();
+        safe = new IntSet(cells);
+        mines = new IntSet(cells);
+        queued = new IntSet(cells);
+
+        // pick up anything revealed before the solver was created
+        for (int index = 0; index < cells; index++)
+            if (board.isRevealed(index))
+                enqueue(index);
+    }
+
+    // to be called with the cells returned by Board.reveal
+    public void revealed(final IntList changed) {
+        for (int x = 0; x < changed.size(); x++) {
+            int index = changed.get(x);
+            safe.remove(index);
+            enqueue(index);
+            enqueueNeighbors(index);
+        }
+    }
+
+    // to be called whenever a flag is placed or removed
+    public void flagged(final int index) {
+        enqueueNeighbors(index);
+    }
+
+    public void solve() {
+        while (!queue.isEmpty()) {
+            int index = queue.removeLast();
+            queued.remove(index);
+
+            process(index);
+        }
+    }
+
+    // any hidden cell which is certainly safe, or -1 if there is none
+    public int nextSafe() {
+        return safe.next(0);
+    }
+
+    public boolean isSafe(final int index) {
+        return safe.contains(index);
+    }
+
+    public boolean isMine(final int index) {
+        return mines.contains(index) || board.isFlagged(index);
+    }
+
+    public IntSet getSafe() {
+        return safe;
+    }
+
+    public IntSet getMines() {
+        return mines;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    private void process(final int a) {
+        int countA = unknowns(a, unknownA);
+        if (countA <= 0) return;
+
+        int minesA = remainingMines(a);
+        if (minesA < 0 || minesA > countA) return; // contradicted by a wrong flag
+
+        if (minesA == 0) {
+            for (int x = 0; x < countA; x++) markSafe(unknownA[x]);
+            return;
+        }
+        if (minesA == countA) {
+            for (int x = 0; x < countA; x++) markMine(unknownA[x]);
+            return;
+        }
+
+        // compare with every number sharing at least one unknown cell
+        int nearbyCount = 0;
+        for (int x = 0; x < countA; x++) {
+            int unknown = unknownA[x];
+            for (int n = neighbors.start(unknown), end = neighbors.end(unknown); n < end; n++) {
+                int b = neighbors.get(n);
+                if (b == a || !board.isRevealed(b) || contains(nearby, nearbyCount, b)) continue;
+                nearby[nearbyCount++] = b;
+            }
+        }
+
+        for (int x = 0; x < nearbyCount; x++) {
+            int b = nearby[x];
+            int countB = unknowns(b, unknownB);
+            if (countB <= 0) continue;
+
+            int minesB = remainingMines(b);
+            if (minesB < 0 || minesB > countB) continue;
+
+            if (!compare(unknownA, countA, minesA, unknownB, countB, minesB))
+                compare(unknownB, countB, minesB, unknownA, countA, minesA);
+
+            // a deduction may have changed this constraint, it will be requeued
+            if (queued.contains(a)) return;
+        }
+    }
+
+    /*
+     * B has at least minesB - |B \ A| mines inside A. If that is exactly
+     * minesA then A's mines are all shared with B, so A \ B is safe and
+     * B \ A is all mines.
+     */
+    private boolean compare(final int[] a, final int countA, final int minesA,
+                            final int[] b, final int countB, final int minesB) {
+        int onlyB = 0;
+        for (int x = 0; x < countB; x++)
+            if (!contains(a, countA, b[x])) onlyB++;
+
+        if (minesB - onlyB != minesA) return false;
+
+        int onlyA = 0;
+        for (int x = 0; x < countA; x++)
+            if (!contains(b, countB, a[x])) onlyA++;
+        if (onlyA == 0 && onlyB == 0) return false;
+
+        for (int x = 0; x < countA; x++)
+            if (!contains(b, countB, a[x])) markSafe(a[x]);
+        for (int x = 0; x < countB; x++)
+            if (!contains(a, countA, b[x])) markMine(b[x]);
+        return true;
+    }
+
+    // hidden neighbours not yet known to be safe or a mine, or -1 for mines
+    private int unknowns(final int index,
+                         final int[] into) {
+        if (board.isMine(index)) return -1;
+
+        int count = 0;
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+            int adjacent = neighbors.get(n);
+            if (board.isRevealed(adjacent) || safe.contains(adjacent) || isMine(adjacent)) continue;
+            into[count++] = adjacent;
+        }
+        return count;
+    }
+
+    private int remainingMines(final int index) {
+        int remaining = board.getNumber(index);
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+            int adjacent = neighbors.get(n);
+            if (!board.isRevealed(adjacent) && isMine(adjacent))
+                remaining--;
+        }
+        return remaining;
+    }
+
+    private void markSafe(final int index) {
+        if (safe.add(index)) enqueueNeighbors(index);
+    }
+
+    private void markMine(final int index) {
+        if (mines.add(index)) enqueueNeighbors(index);
+    }
+
+    private void enqueueNeighbors(final int index) {
+        for (int n = neighbors.start(index), end = neighbors.end(index); n < end; n++) {
+            int adjacent = neighbors.get(n);
+            if (board.isRevealed(adjacent)) enqueue(adjacent);
+        }
+    }
+
+    private void enqueue(final int index) {
+        if (queued.add(index)) queue.add(index);
+    }
+
+    private static boolean contains(final int[] values,
+                                    final int length,
+                                    final int value) {
+        for (int x = 0; x < length; x++)
+            if (values[x] == value) return true;
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Running totals over a history of games, enough to answer every figure
+ * of the stats dialog without looking at the games themselves.
+ */
+final class Aggregates {
+
+    // every value GameSettings.getDifficulty can return
+    static final String[] DIFFICULTIES = {"Beginner", "Intermediate", "Expert", "Professional", "Custom"};
+
+    // sums, minimum date, then a count per difficulty
+    static final int SIZE = 8 * 6 + 8 * DIFFICULTIES.length;
+
+    private long count = 0L;
+    private long mines = 0L;
+    private double density = 0d;
+    private long cells = 0L;
+    private long millis = 0L;
+    private long startDate = Long.MAX_VALUE;
+    private final long[] difficulties = new long[DIFFICULTIES.length];
+
+    void add(final GameSettings settings,
+             final long date,
+             final long millis) {
+        count++;
+        mines += settings.getMines();
+        density += settings.getMineDensity();
+        cells += (long) settings.getColumns() * settings.getRows();
+        this.millis += millis;
+        startDate = Math.min(startDate, date);
+        difficulties[difficulty(settings)]++;
+    }
+
+    void add(final Aggregates other) {
+        count += other.count;
+        mines += other.mines;
+        density += other.density;
+        cells += other.cells;
+        millis += other.millis;
+        startDate = Math.min(startDate, other.startDate);
+        for (int x = 0; x < difficulties.length; x++)
+            difficulties[x] += other.difficulties[x];
+    }
+
+    void clear() {
+        count = mines = cells = millis = 0L;
+        density = 0d;
+        startDate = Long.MAX_VALUE;
+        for (int x = 0; x < difficulties.length; x++)
+            difficulties[x] = 0L;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getMines() {
+        return mines;
+    }
+
+    double getDensity() {
+        return density;
+    }
+
+    long getCells() {
+        return cells;
+    }
+
+    long getMillis() {
+        return millis;
+    }
+
+    long getStartDate() {
+        return startDate;
+    }
+
+    // the most played difficulty, earlier ones winning ties
+    String getFavouriteDifficulty() {
+        int favourite = 0;
+        for (int x = 1; x < difficulties.length; x++)
+            if (difficulties[x] > difficulties[favourite])
+                favourite = x;
+        return DIFFICULTIES[favourite];
+    }
+
+    void write(final DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(mines);
+        out.writeDouble(density);
+        out.writeLong(cells);
+        out.writeLong(millis);
+        out.writeLong(startDate);
+        for (long difficulty : difficulties)
+            out.writeLong(difficulty);
+    }
+
+    static Aggregates read(final ByteBuffer buffer) {
+        Aggregates aggregates = new Aggregates();
+        aggregates.count = buffer.getLong();
+        aggregates.mines = buffer.getLong();
+        aggregates.density = buffer.getDouble();
+        aggregates.cells = buffer.getLong();
+        aggregates.millis = buffer.getLong();
+        aggregates.startDate = buffer.getLong();
+        for (int x = 0; x < aggregates.difficulties.length; x++)
+            aggregates.difficulties[x] = buffer.getLong();
+        return aggregates;
+    }
+
+    private static int difficulty(final GameSettings settings) {
+        String difficulty = settings.getDifficulty();
+        for (int x = 0; x < DIFFICULTIES.length; x++)
+            if (DIFFICULTIES[x].equals(difficulty)) return x;
+        throw new IllegalArgumentException("Unknown difficulty " + difficulty);
+    }
+}
@@ -20,7 +20,7 @@ public class ArchivedGame implements Serializable {
     private final TimeUnit unit;
 
     public ArchivedGame(final MineGame game) {
-        this(game.getSettings(), System.currentTimeMillis(), game.getTime(), TimeUnit.SECONDS);
+        this(game.getSettings(), System.currentTimeMillis(), game.getTime(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
     }
 
     public ArchivedGame(final GameSettings settings,
@@ -42,7 +42,7 @@ public class ArchivedGame implements Serializable {
     }
 
     public long getTime(final TimeUnit unit) {
-        return unit.convert(time, TimeUnit.SECONDS);
+        return unit.convert(time, this.unit);
     }
 
     @Override
@@ -9,93 +9,303 @@ import com.maulss.minesweeper.GameSettings;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
-public final class ArchivedGames extends LinkedList<ArchivedGame> {
+/**
+ * History of won games: a {@link GameArchive} read in place, followed by
+ * the games added since it was opened, which are kept in primitive
+ * columns the same way. Games are only turned into {@link ArchivedGame}
+ * objects when asked for one by one, and the figures of the stats dialog
+ * come from totals kept up to date on every add, as do the best times
+ * and the date order used for range queries, and the distribution of
+ * times for every settings.
+ */
+public final class ArchivedGames extends AbstractList<ArchivedGame> {
+
+    private GameArchive archive = GameArchive.EMPTY;
+    private final Aggregates aggregates = new Aggregates();
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final Map<GameSettings, TimeHistogram> histograms = new HashMap<>();
+
+    // games added since the archive was opened, settings by id
+    private long[] dates = new long[16];
+    private long[] times = new long[16];
+    private int[] ids = new int[16];
+    private int recent = 0;
+    // positions of the recent games by date
+    private int[] recentOrder = new int[16];
+    private final List<GameSettings> settings = new ArrayList<>();
+    private final Map<GameSettings, Integer> settingsIds = new HashMap<>();
 
     public ArchivedGames() { }
 
     public ArchivedGames(final Collection<ArchivedGame> c) {
-        super(c);
+        addAll(c);
     }
 
-    public Optional<String> getFavouriteDifficulty() {
-        if (isEmpty()) return Optional.empty();
+    public ArchivedGames(final GameArchive archive) {
+        this.archive = Objects.requireNonNull(archive, "archive");
+        aggregates.add(archive.getAggregates());
+        leaderboard.add(archive.getLeaderboard());
+
+        GameSettings[] dictionary = archive.getDictionary();
+        for (int id = 0; id < dictionary.length; id++)
+            histogram(dictionary[id]).add(archive.getHistogram(id));
+    }
+
+    public GameArchive getArchive() {
+        return archive;
+    }
+
+    Aggregates getAggregates() {
+        return aggregates;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    // times of every game with the given settings, empty if there are none
+    public TimeHistogram getHistogram(final GameSettings settings) {
+        TimeHistogram histogram = histograms.get(settings);
+        return histogram == null ? new TimeHistogram() : histogram;
+    }
+
+    // times of every settings played, smallest boards first
+    public Map<GameSettings, TimeHistogram> getHistograms() {
+        Map<GameSettings, TimeHistogram> sorted = new TreeMap<>(Leaderboard.BY_SIZE);
+        sorted.putAll(histograms);
+        return Collections.unmodifiableMap(sorted);
+    }
+
+    // games dated from (inclusive) to (exclusive)
+    public int countBetween(final long from,
+                            final long to) {
+        if (to <= from) return 0;
+        return archive.countBefore(to) - archive.countBefore(from)
+                + recentBefore(to) - recentBefore(from);
+    }
 
-        Map<String, Integer> difficulties = new HashMap<>();
-        for (ArchivedGame game : this) {
-            String difficulty = game.getSettings().getDifficulty();
-            if (difficulties.containsKey(difficulty)) {
-                difficulties.replace(difficulty, difficulties.get(difficulty) + 1);
+    // games dated from (inclusive) to (exclusive), earliest first
+    public List<ArchivedGame> getBetween(final long from,
+                                         final long to) {
+        if (to <= from) return Collections.emptyList();
+
+        int archiveRank = archive.countBefore(from);
+        int archiveEnd = archive.countBefore(to);
+        int recentRank = recentBefore(from);
+        int recentEnd = recentBefore(to);
+
+        List<ArchivedGame> games = new ArrayList<>(archiveEnd - archiveRank + recentEnd - recentRank);
+        while (archiveRank < archiveEnd || recentRank < recentEnd) {
+            int archived = archiveRank < archiveEnd ? archiveRank : -1;
+            int added = recentRank < recentEnd ? recentOrder[recentRank] : -1;
+
+            if (added == -1 || (archived != -1 && archive.getDate(archived) <= dates[added])) {
+                games.add(archive.get(archived));
+                archiveRank++;
             } else {
-                difficulties.put(difficulty, 1);
+                games.add(get(archive.size() + added));
+                recentRank++;
             }
         }
+        return games;
+    }
 
-        Map.Entry<String, Integer> favourite = null;
-        for (Map.Entry<String, Integer> entry : difficulties.entrySet()) {
-            if (favourite == null || entry.getValue() > favourite.getValue()) {
-                favourite = entry;
-            }
-        }
+    // whether a game with the same date, settings and time is here, found through the date index
+    @Override
+    public boolean contains(final Object o) {
+        if (!(o instanceof ArchivedGame)) return false;
 
-        return Optional.of(favourite.getKey());
+        ArchivedGame game = (ArchivedGame) o;
+        long date = game.getDate().getTime();
+        long time = game.getTime(TimeUnit.MILLISECONDS);
+        for (ArchivedGame other : getBetween(date, date + 1))
+            if (other.getTime(TimeUnit.MILLISECONDS) == time && other.getSettings().equals(game.getSettings()))
+                return true;
+        return false;
     }
 
-    public float getAverageMines() {
-        float sum = 0f;
-        float count = 0f;
-        for (ArchivedGame game : this) {
-            sum += game.getSettings().getMines();
-            count++;
-        }
+    @Override
+    public ArchivedGame get(final int index) {
+        if (index < archive.size()) return archive.get(index);
 
-        return sum / count;
+        int x = recent(index);
+        return new ArchivedGame(settings.get(ids[x]), dates[x], times[x], TimeUnit.MILLISECONDS);
     }
 
-    public float getAverageDensity() {
-        float sum = 0f;
-        float count = 0f;
-        for (ArchivedGame game : this) {
-            sum += game.getSettings().getMineDensity();
-            count++;
+    public GameSettings getSettings(final int index) {
+        return index < archive.size()
+                ? archive.getSettings(index)
+                : settings.get(ids[recent(index)]);
+    }
+
+    public long getDate(final int index) {
+        return index < archive.size()
+                ? archive.getDate(index)
+                : dates[recent(index)];
+    }
+
+    public long getTime(final int index,
+                        final TimeUnit unit) {
+        return index < archive.size()
+                ? archive.getTime(index, unit)
+                : unit.convert(times[recent(index)], TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int size() {
+        return archive.size() + recent;
+    }
+
+    @Override
+    public boolean add(final ArchivedGame game) {
+        GameSettings settings = game.getSettings();
+        long date = game.getDate().getTime();
+        long time = game.getTime(TimeUnit.MILLISECONDS);
+
+        Integer id = settingsIds.get(settings);
+        if (id == null) {
+            id = this.settings.size();
+            settingsIds.put(settings, id);
+            this.settings.add(settings);
         }
 
-        return sum / count;
+        if (recent == ids.length) {
+            dates = Arrays.copyOf(dates, recent << 1);
+            times = Arrays.copyOf(times, recent << 1);
+            ids = Arrays.copyOf(ids, recent << 1);
+            recentOrder = Arrays.copyOf(recentOrder, recent << 1);
+        }
+        dates[recent] = date;
+        times[recent] = time;
+        ids[recent] = id;
+
+        // games mostly arrive in date order, so this is usually an append
+        int rank = recentBefore(date + 1);
+        System.arraycopy(recentOrder, rank, recentOrder, rank + 1, recent - rank);
+        recentOrder[rank] = recent;
+        recent++;
+
+        aggregates.add(settings, date, time);
+        leaderboard.add(settings, date, time);
+        histogram(settings).record(time);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        archive = GameArchive.EMPTY;
+        aggregates.clear();
+        leaderboard.clear();
+        histograms.clear();
+        recent = 0;
+        settings.clear();
+        settingsIds.clear();
+        modCount++;
+    }
+
+    public Optional<String> getFavouriteDifficulty() {
+        if (isEmpty()) return Optional.empty();
+        return Optional.of(aggregates.getFavouriteDifficulty());
+    }
+
+    public float getAverageMines() {
+        return (float) ((double) aggregates.getMines() / aggregates.getCount());
+    }
+
+    public float getAverageDensity() {
+        return (float) (aggregates.getDensity() / aggregates.getCount());
     }
 
     public float getAverageCellCount() {
-        float sum = 0f;
-        float count = 0f;
-        for (ArchivedGame game : this) {
-            GameSettings settings = game.getSettings();
-            sum += settings.getColumns() * settings.getRows();
-            count++;
+        return (float) ((double) aggregates.getCells() / aggregates.getCount());
+    }
+
+    public float getAverageTime(final TimeUnit unit) {
+        double millis = (double) aggregates.getMillis() / aggregates.getCount();
+        return (float) (millis * TimeUnit.MILLISECONDS.toNanos(1) / unit.toNanos(1));
+    }
+
+    public Optional<Date> getStartDate() {
+        if (isEmpty()) return Optional.empty();
+        return Optional.of(new Date(aggregates.getStartDate()));
+    }
+
+    // the games so far, left as they are by later adds or a clear so another thread can read them
+    List<ArchivedGame> snapshot() {
+        return new Snapshot(archive, Arrays.copyOf(dates, recent), Arrays.copyOf(times, recent),
+                Arrays.copyOf(ids, recent), settings.toArray(new GameSettings[0]));
+    }
+
+    // positions of every game by date, games from the same moment in the order they were added
+    int[] byDate() {
+        int[] order = new int[size()];
+        int archived = 0;
+        int added = 0;
+        for (int rank = 0; rank < order.length; rank++) {
+            if (added == recent || (archived < archive.size() && archive.getDate(archived) <= dates[recentOrder[added]]))
+                order[rank] = archived++;
+            else
+                order[rank] = archive.size() + recentOrder[added++];
         }
+        return order;
+    }
 
-        return sum / count;
+    private TimeHistogram histogram(final GameSettings settings) {
+        return histograms.computeIfAbsent(settings, key -> new TimeHistogram());
     }
 
-    public float getAverageTime(final TimeUnit unit) {
-        float sum = 0f;
-        float count = 0f;
-        for (ArchivedGame game : this) {
-            sum += game.getTime(unit);
-            count++;
+    // number of recent games dated before the given date
+    private int recentBefore(final long date) {
+        int low = 0;
+        int high = recent;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dates[recentOrder[middle]] < date) low = middle + 1;
+            else high = middle;
         }
+        return low;
+    }
 
-        return sum / count;
+    private int recent(final int index) {
+        int x = index - archive.size();
+        if (index < 0 || x >= recent)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        return x;
     }
 
-    public Optional<Date> getStartDate() {
-        if (isEmpty()) return Optional.empty();
+    // named, as Gson doesn't write anonymous classes
+    private static final class Snapshot extends AbstractList<ArchivedGame> {
 
-        long start = Long.MAX_VALUE;
-        for (ArchivedGame game : this) {
-            long time = game.getDate().getTime();
-            if (time < start) {
-                start = time;
-            }
+        private final GameArchive archive;
+        private final long[] dates;
+        private final long[] times;
+        private final int[] ids;
+        private final GameSettings[] settings;
+
+        private Snapshot(final GameArchive archive,
+                         final long[] dates,
+                         final long[] times,
+                         final int[] ids,
+                         final GameSettings[] settings) {
+            this.archive = archive;
+            this.dates = dates;
+            this.times = times;
+            this.ids = ids;
+            this.settings = settings;
         }
 
-        return Optional.of(new Date(start));
+        @Override
+        public ArchivedGame get(final int index) {
+            if (index < archive.size()) return archive.get(index);
+
+            int x = index - archive.size();
+            return new ArchivedGame(settings[ids[x]], dates[x], times[x], TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int size() {
+            return archive.size() + ids.length;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,370 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only, memory-mapped history of games in a columnar layout. Each
+ * distinct {@link GameSettings} is stored once in a dictionary and games
+ * refer to it by id; dates, durations and ids are separate primitive
+ * columns which are read in place, so opening even a very long history
+ * costs little more than mapping the file. Totals over all games are
+ * stored in the header, so the stats dialog never reads the columns.
+ * Games are written in date order, so date ranges are found by binary
+ * search. The columns are followed by a {@link TimeHistogram} for each
+ * settings and the {@link Leaderboard}.
+ *
+ * <p>The archive is rewritten from the {@link GameLog} by
+ * {@link #compact(Path, Path)}, only once the log has grown long enough
+ * for reading it to cost more than the occasional rewrite. Logs waiting
+ * to be compacted are renamed with the generation of the archive that
+ * will contain them, which makes a compaction interrupted at any point
+ * safe to repeat. Each generation of the archive is a file of its own,
+ * since a mapped file can't be replaced on every platform; the newest is
+ * the archive, and older ones are deleted once they are no longer mapped.
+ */
+public final class GameArchive {
+
+    static final int MAGIC = 0x4D534741;
+    static final int VERSION = 1;
+
+    // magic, version, generation, games, settings, followed by the totals
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+    // columns, rows, mines
+    private static final int SETTINGS_SIZE = 4 + 4 + 4;
+
+    // games the log holds before it is compacted, about 1.5 MB to read when opening
+    static final int COMPACT_THRESHOLD = 1 << 16;
+
+    public static final GameArchive EMPTY = new GameArchive(0L, new Aggregates(), new GameSettings[0],
+            new TimeHistogram[0], new Leaderboard(), LongBuffer.allocate(0), LongBuffer.allocate(0), IntBuffer.allocate(0));
+
+    private final long generation;
+    private final Aggregates aggregates;
+    private final GameSettings[] settings;
+    private final TimeHistogram[] histograms;
+    private final Leaderboard leaderboard;
+    private final LongBuffer dates;
+    private final LongBuffer times;
+    private final IntBuffer ids;
+
+    private GameArchive(final long generation,
+                        final Aggregates aggregates,
+                        final GameSettings[] settings,
+                        final TimeHistogram[] histograms,
+                        final Leaderboard leaderboard,
+                        final LongBuffer dates,
+                        final LongBuffer times,
+                        final IntBuffer ids) {
+        this.generation = generation;
+        this.aggregates = aggregates;
+        this.settings = settings;
+        this.histograms = histograms;
+        this.leaderboard = leaderboard;
+        this.dates = dates;
+        this.times = times;
+        this.ids = ids;
+    }
+
+    public int size() {
+        return ids.limit();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    // totals over every game in the archive, not to be modified
+    Aggregates getAggregates() {
+        return aggregates;
+    }
+
+    public long getDate(final int index) {
+        return dates.get(index);
+    }
+
+    public long getTime(final int index,
+                        final TimeUnit unit) {
+        return unit.convert(times.get(index), TimeUnit.MILLISECONDS);
+    }
+
+    public int getSettingsId(final int index) {
+        return ids.get(index);
+    }
+
+    public GameSettings getSettings(final int index) {
+        return settings[ids.get(index)];
+    }
+
+    // distinct settings, indexed by id
+    public GameSettings[] getDictionary() {
+        return settings.clone();
+    }
+
+    // number of games dated before the given date
+    public int countBefore(final long date) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dates.get(middle) < date) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // times of the games with the given settings id, not to be modified
+    TimeHistogram getHistogram(final int id) {
+        return histograms[id];
+    }
+
+    // best times of the archive, not to be modified
+    Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public ArchivedGame get(final int index) {
+        return new ArchivedGame(getSettings(index), getDate(index), times.get(index), TimeUnit.MILLISECONDS);
+    }
+
+    public static GameArchive open(final Path path) throws IOException {
+        if (!Files.exists(path)) return EMPTY;
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+            throw new IOException(path + " is not a game archive");
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException(path + " has unsupported version " + version);
+
+        long generation = buffer.getLong();
+        int count = buffer.getInt();
+        int settingsCount = buffer.getInt();
+        Aggregates aggregates = Aggregates.read(buffer);
+
+        if (buffer.capacity() < columnsOffset(settingsCount) + (long) count * (8 + 8 + 4))
+            throw new IOException(path + " is truncated");
+
+        GameSettings[] settings = new GameSettings[settingsCount];
+        for (int id = 0; id < settingsCount; id++)
+            settings[id] = new GameSettings(buffer.getInt(), buffer.getInt(), buffer.getInt());
+
+        int offset = columnsOffset(settingsCount);
+        LongBuffer dates = column(buffer, offset, count * 8).asLongBuffer();
+        offset += count * 8;
+        LongBuffer times = column(buffer, offset, count * 8).asLongBuffer();
+        offset += count * 8;
+        IntBuffer ids = column(buffer, offset, count * 4).asIntBuffer();
+        offset += count * 4;
+
+        TimeHistogram[] histograms = new TimeHistogram[settingsCount];
+        Leaderboard leaderboard;
+        buffer.position(offset);
+        try {
+            for (int id = 0; id < settingsCount; id++)
+                histograms[id] = TimeHistogram.read(buffer);
+            leaderboard = Leaderboard.read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException(path + " is truncated", e);
+        }
+
+        return new GameArchive(generation, aggregates, settings, histograms, leaderboard, dates, times, ids);
+    }
+
+    public static void write(final Path path,
+                             final long generation,
+                             final ArchivedGames games) throws IOException {
+        int count = games.size();
+
+        Map<GameSettings, Integer> dictionary = new HashMap<>();
+        List<GameSettings> settings = new ArrayList<>();
+        int[] ids = new int[count];
+        for (int x = 0; x < count; x++) {
+            GameSettings game = games.getSettings(x);
+            Integer id = dictionary.get(game);
+            if (id == null) {
+                id = settings.size();
+                dictionary.put(game, id);
+                settings.add(game);
+            }
+            ids[x] = id;
+        }
+
+        // written beside the archive and moved over it, so a reader never sees half a file
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(count);
+            out.writeInt(settings.size());
+            games.getAggregates().write(out);
+            for (GameSettings entry : settings) {
+                out.writeInt(entry.getColumns());
+                out.writeInt(entry.getRows());
+                out.writeInt(entry.getMines());
+            }
+            for (int x = out.size(); x < columnsOffset(settings.size()); x++)
+                out.writeByte(0);
+
+            int[] order = games.byDate();
+            for (int x = 0; x < count; x++) out.writeLong(games.getDate(order[x]));
+            for (int x = 0; x < count; x++) out.writeLong(games.getTime(order[x], TimeUnit.MILLISECONDS));
+            for (int x = 0; x < count; x++) out.writeInt(ids[order[x]]);
+            for (GameSettings entry : settings)
+                games.getHistogram(entry).write(out);
+            games.getLeaderboard().write(out);
+
+            out.flush();
+            channel.force(true);
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Folds the games in the log into the newest archive beside the given
+     * path and returns the result, leaving an empty log behind, once the
+     * log holds at least {@link #COMPACT_THRESHOLD} games. Logs left
+     * behind by an interrupted compaction are always folded in. Otherwise
+     * this only opens the archive, and the games of the log are to be read
+     * beside it.
+     */
+    public static GameArchive compact(final Path archivePath,
+                                      final Path logPath) throws IOException {
+        TreeMap<Long, Path> archives = generations(archivePath);
+        GameArchive archive = archives.isEmpty() ? EMPTY : open(archives.lastEntry().getValue());
+        long generation = archive.getGeneration();
+
+        // superseded, and not mapped yet by this process
+        for (Path file : archives.headMap(archives.isEmpty() ? 0L : archives.lastKey()).values())
+            delete(file);
+
+        // logs left behind by an earlier compaction, by the generation they belong to
+        TreeMap<Long, Path> pending = generations(logPath);
+        for (Iterator<Path> files = pending.headMap(generation, true).values().iterator(); files.hasNext(); ) {
+            Files.delete(files.next()); // already in the archive
+            files.remove();
+        }
+
+        long target = pending.isEmpty() ? generation + 1 : pending.lastKey();
+        if (Files.exists(logPath) && Files.size(logPath) >= (long) COMPACT_THRESHOLD * GameLog.RECORD_SIZE) {
+            if (!pending.isEmpty()) target++;
+            Path renamed = logPath.resolveSibling(logPath.getFileName() + "." + target);
+            Files.move(logPath, renamed, StandardCopyOption.ATOMIC_MOVE);
+            pending.put(target, renamed);
+        }
+        if (pending.isEmpty()) return archive;
+
+        ArchivedGames games = new ArchivedGames(archive);
+        for (Path file : pending.values())
+            games.addAll(GameLog.read(file));
+        Path compacted = path(archivePath, target);
+        write(compacted, target, games);
+
+        for (Path file : pending.values())
+            Files.delete(file);
+        if (!archives.isEmpty())
+            delete(archives.lastEntry().getValue());
+        return open(compacted);
+    }
+
+    /**
+     * Starts a new, empty archive beside the given path, newer than every
+     * archive and log already there, so none of their games are read
+     * again.
+     */
+    public static void clear(final Path archivePath,
+                             final Path logPath) throws IOException {
+        TreeMap<Long, Path> archives = generations(archivePath);
+        TreeMap<Long, Path> pending = generations(logPath);
+        long target = Math.max(archives.isEmpty() ? 0L : archives.lastKey(),
+                pending.isEmpty() ? 0L : pending.lastKey()) + 1;
+        write(path(archivePath, target), target, new ArchivedGames());
+    }
+
+    // whether any archive has been written beside the given path
+    public static boolean exists(final Path archivePath) throws IOException {
+        return !generations(archivePath).isEmpty();
+    }
+
+    // the file holding the given generation of the archive beside the given path
+    public static Path path(final Path archivePath,
+                            final long generation) {
+        return archivePath.resolveSibling(archivePath.getFileName() + "." + generation);
+    }
+
+    // files named after the given path with a generation appended, by generation
+    private static TreeMap<Long, Path> generations(final Path path) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path.getParent(), prefix + "*")) {
+            for (Path file : stream) {
+                try {
+                    files.put(Long.parseLong(file.getFileName().toString().substring(prefix.length())), file);
+                } catch (NumberFormatException e) {
+                    // not one of them, such as a file still being written
+                }
+            }
+        }
+        return files;
+    }
+
+    // a file still mapped can't be deleted on every platform, it is then left for the next compaction
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // still mapped
+        }
+    }
+
+    private static int columnsOffset(final int settingsCount) {
+        int offset = HEADER_SIZE + Aggregates.SIZE + settingsCount * SETTINGS_SIZE;
+        return (offset + 7) & ~7;
+    }
+
+    private static ByteBuffer column(final ByteBuffer buffer,
+                                     final int offset,
+                                     final int length) {
+        ByteBuffer column = buffer.duplicate();
+        column.position(offset);
+        column.limit(offset + length);
+        return column.slice();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of finished games: one fixed-size binary record
+ * per game, written with a single append. Records are forced to disk
+ * every few games and when the log is closed. A record cut short by a
+ * crash is dropped the next time the log is opened, and a record which
+ * doesn't hold a game, such as one zeroed by a crash, is dropped with
+ * everything after it the next time the log is read.
+ */
+public final class GameLog implements Closeable {
+
+    // date, duration in milliseconds, columns, rows, mines
+    static final int RECORD_SIZE = 8 + 8 + 2 + 2 + 4;
+
+    private static final int SYNC_INTERVAL = 16;
+    private static final int BATCH_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private int unsynced = 0;
+
+    public GameLog(final Path path) throws IOException {
+        channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        // drop a partially written record so appends stay aligned
+        long size = channel.size();
+        channel.truncate(size - size % RECORD_SIZE);
+        channel.position(channel.size());
+    }
+
+    public void append(final ArchivedGame game) throws IOException {
+        buffer.clear();
+        encode(game, buffer);
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        if (++unsynced >= SYNC_INTERVAL)
+            sync();
+    }
+
+    // a batch of games in as few writes as possible, synced like the same games appended one by one
+    public void append(final List<ArchivedGame> games) throws IOException {
+        if (games.isEmpty()) return;
+
+        ByteBuffer batch = ByteBuffer.allocate(RECORD_SIZE * Math.min(games.size(), BATCH_SIZE));
+        for (int x = 0; x < games.size(); x++) {
+            encode(games.get(x), batch);
+            if (!batch.hasRemaining() || x == games.size() - 1) {
+                batch.flip();
+                while (batch.hasRemaining())
+                    channel.write(batch);
+                batch.clear();
+            }
+        }
+
+        unsynced += games.size();
+        if (unsynced >= SYNC_INTERVAL)
+            sync();
+    }
+
+    public void sync() throws IOException {
+        channel.force(false);
+        unsynced = 0;
+    }
+
+    public void clear() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public static ArchivedGames read(final Path path) throws IOException {
+        ArchivedGames games = new ArchivedGames();
+        if (!Files.exists(path)) return games;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            read:
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    try {
+                        games.add(decode(buffer));
+                    } catch (IllegalArgumentException e) {
+                        // appends would land behind it, so the log ends before it
+                        channel.truncate((long) games.size() * RECORD_SIZE);
+                        break read;
+                    }
+                }
+                buffer.compact();
+            }
+        }
+        return games;
+    }
+
+    static void encode(final ArchivedGame game,
+                       final ByteBuffer buffer) {
+        GameSettings settings = game.getSettings();
+        buffer.putLong(game.getDate().getTime());
+        buffer.putLong(game.getTime(TimeUnit.MILLISECONDS));
+        buffer.putShort((short) settings.getColumns());
+        buffer.putShort((short) settings.getRows());
+        buffer.putInt(settings.getMines());
+    }
+
+    static ArchivedGame decode(final ByteBuffer buffer) {
+        long date = buffer.getLong();
+        long time = buffer.getLong();
+        int columns = buffer.getShort();
+        int rows = buffer.getShort();
+        int mines = buffer.getInt();
+        if (columns <= 0 || rows <= 0 || mines < 0 || time < 0)
+            throw new IllegalArgumentException("Not a game: " + columns + "x" + rows + ", "
+                    + mines + " mines, " + time + "ms");
+        return new ArchivedGame(new GameSettings(columns, rows, mines), date, time, TimeUnit.MILLISECONDS);
+    }
+}
@@ -7,63 +7,135 @@ package com.maulss.minesweeper.stats;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.maulss.minesweeper.Minesweeper;
+import com.maulss.minesweeper.replay.Recording;
+import javafx.application.Platform;
 
 import java.awt.*;
 import java.io.*;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * History of won games, kept in memory and written behind by a
+ * {@link PersistenceService}. The history is loaded in the background
+ * from {@link #preload()}, and is only handed out through the future it
+ * returns, so nothing waits for the disk on the FX thread.
+ */
 public final class GameStats {
 
     public static final String HOME_PATH = System.getProperty("user.home") + "/Documents/minesweeper";
     public static final String DATA_PATH = HOME_PATH + "/games.json";
+    public static final String LOG_PATH = HOME_PATH + "/games.log";
+    public static final String ARCHIVE_PATH = HOME_PATH + "/games.archive";
+    public static final String REPLAYS_PATH = HOME_PATH + "/games.replays";
     public static final Gson GSON = new GsonBuilder()
             .setPrettyPrinting()
             .create();
 
-    private static GameStats instance = null;
+    private static PersistenceService persistence = null;
+    private static CompletableFuture<GameStats> instance = null;
 
-    private ArchivedGames games = null;
+    private final ArchivedGames games;
 
-    private GameStats() {
-        try {
-            setupStorage();
-            games = readJson(GSON);
-        } catch (IOException e) {
-            Minesweeper.alertError(e);
-        }
+    private GameStats(final ArchivedGames games) {
+        this.games = games;
     }
 
     public ArchivedGames getGames() {
         return games;
     }
 
-    public static void setupStorage() throws IOException {
-        File main = new File(HOME_PATH);
-        if (!main.exists())
-            main.mkdirs();
+    // to be called on the FX thread, the game is saved in the background
+    public void add(final ArchivedGame game) {
+        games.add(game);
+        persistence.append(game);
+    }
+
+    // to be called on the FX thread, the recording is saved in the background
+    public void addRecording(final Recording recording) {
+        persistence.append(recording);
+    }
+
+    // every recording kept so far, oldest first
+    public CompletableFuture<List<Recording>> loadRecordings() {
+        return persistence.loadRecordings();
+    }
+
+    // to be called on the FX thread, the games are only forgotten once their files have been emptied
+    public CompletableFuture<Void> clear() {
+        return persistence.clear().thenRunAsync(games::clear, Platform::runLater);
+    }
+
+    // to be called on the FX thread, the games are written in the background
+    public CompletableFuture<Void> exportJson(final Path path) {
+        return persistence.exportJson(games.snapshot(), path);
+    }
+
+    /**
+     * Reads the files concurrently, then adds every game read from them to
+     * the history on the FX thread. A file which can't be read to its end
+     * still contributes the games before the problem, which is reported.
+     * Games already in the history, with the same date, settings and time,
+     * are skipped. Completes with the number of games added.
+     */
+    public CompletableFuture<Integer> importJson(final List<Path> paths) {
+        List<CompletableFuture<JsonImport>> reads = new ArrayList<>(paths.size());
+        for (Path path : paths)
+            reads.add(CompletableFuture.supplyAsync(() -> JsonImport.read(path)));
+
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenApplyAsync(ignored -> {
+            int count = 0;
+            for (CompletableFuture<JsonImport> read : reads) {
+                JsonImport result = read.join();
+                if (!result.isComplete())
+                    Minesweeper.alertError(result.getError());
 
-        if (new File(DATA_PATH).createNewFile())
-            Files.write(
-                    Paths.get(DATA_PATH),
-                    Collections.singletonList("[]"),
-                    Charset.forName("UTF-8")
-            );
+                ArchivedGames imported = new ArchivedGames();
+                for (ArchivedGame game : result.getGames()) {
+                    if (games.contains(game)) continue;
+                    games.add(game);
+                    imported.add(game);
+                }
+                persistence.append(imported);
+                count += imported.size();
+            }
+            return count;
+        }, Platform::runLater);
+    }
+
+    public CompletableFuture<Void> flush() {
+        return persistence.flush();
+    }
+
+    public static void setupStorage() throws IOException {
+        Files.createDirectories(Paths.get(HOME_PATH));
     }
 
     public static void writeJson(final Gson gson,
                                  final ArchivedGames games) throws IOException {
         try (Writer writer = new FileWriter(DATA_PATH)) {
-            gson.toJson(games, writer);
+            writeJson(gson, games, writer);
         }
     }
 
-    public static ArchivedGames readJson(final Gson gson) throws IOException {
-        try (Reader reader = new FileReader(DATA_PATH)) {
-            return gson.fromJson(reader, ArchivedGames.class);
-        }
+    public static void writeJson(final Gson gson,
+                                 final ArchivedGames games,
+                                 final Writer writer) {
+        gson.toJson(games, writer);
+    }
+
+    // games before the first unreadable record, see JsonImport
+    public static ArchivedGames readJson() {
+        return JsonImport.read(Paths.get(DATA_PATH)).getGames();
+    }
+
+    public static ArchivedGames readJson(final Gson gson,
+                                         final Reader reader) {
+        return JsonImport.read(gson.newJsonReader(reader)).getGames();
     }
 
     public static void openDirectory(final String path) {
@@ -74,9 +146,22 @@ public final class GameStats {
         }
     }
 
-    public static GameStats getInstance() {
-        return instance == null
-                ? instance = new GameStats()
-                : instance;
+    // starts loading the history in the background, if it isn't already
+    public static synchronized CompletableFuture<GameStats> preload() {
+        if (instance == null) {
+            persistence = new PersistenceService(Paths.get(ARCHIVE_PATH), Paths.get(LOG_PATH),
+                    Paths.get(DATA_PATH), Paths.get(REPLAYS_PATH));
+            instance = persistence.load().thenApply(GameStats::new);
+        }
+        return instance;
+    }
+
+    // writes out anything still queued and stops the writer
+    public static synchronized void shutdown() throws IOException {
+        if (persistence == null) return;
+
+        persistence.close();
+        persistence = null;
+        instance = null;
     }
-}
\ No newline at end of file
+}
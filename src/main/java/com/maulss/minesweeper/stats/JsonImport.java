@@ -0,0 +1,151 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.maulss.minesweeper.GameSettings;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Games read from a games.json file one record at a time, straight into
+ * the columns of an {@link ArchivedGames}, so no tree of the whole file
+ * is ever built. Reading stops at the first record which can't be read;
+ * everything before it is kept and the reason is available from
+ * {@link #getError()}.
+ */
+public final class JsonImport {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ArchivedGames games = new ArchivedGames();
+    private Exception error = null;
+
+    private JsonImport() { }
+
+    public ArchivedGames getGames() {
+        return games;
+    }
+
+    // why the file was not read to its end, or null if it was
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isComplete() {
+        return error == null;
+    }
+
+    public static JsonImport read(final Path path) {
+        JsonImport result = new JsonImport();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Reader reader = new BufferedReader(Channels.newReader(
+                     channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+            result.readGames(new JsonReader(reader));
+        } catch (IOException e) {
+            result.fail(e);
+        }
+        return result;
+    }
+
+    public static JsonImport read(final JsonReader reader) {
+        JsonImport result = new JsonImport();
+        result.readGames(reader);
+        return result;
+    }
+
+    private void readGames(final JsonReader reader) {
+        try {
+            // older files, or one cut short by a crash, may hold nothing at all
+            try {
+                reader.peek();
+            } catch (EOFException e) {
+                return;
+            }
+
+            reader.beginArray();
+            while (reader.hasNext())
+                games.add(readGame(reader));
+            reader.endArray();
+        } catch (IOException | IllegalStateException | IllegalArgumentException | JsonParseException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(final Exception exception) {
+        error = exception;
+    }
+
+    private static ArchivedGame readGame(final JsonReader reader) throws IOException {
+        GameSettings settings = null;
+        long date = -1L;
+        long time = -1L;
+        TimeUnit unit = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "settings":
+                    settings = readSettings(reader);
+                    break;
+                case "date":
+                    date = reader.nextLong();
+                    break;
+                case "time":
+                    time = reader.nextLong();
+                    break;
+                case "unit":
+                    unit = TimeUnit.valueOf(reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (settings == null || date < 0L || time < 0L || unit == null)
+            throw new JsonParseException("Incomplete game at " + reader.getPath());
+        return new ArchivedGame(settings, date, time, unit);
+    }
+
+    private static GameSettings readSettings(final JsonReader reader) throws IOException {
+        int columns = -1;
+        int rows = -1;
+        int mines = -1;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "columns":
+                    columns = reader.nextInt();
+                    break;
+                case "rows":
+                    rows = reader.nextInt();
+                    break;
+                case "mines":
+                    mines = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (columns < 1 || rows < 1 || mines < 0)
+            throw new JsonParseException("Invalid settings at " + reader.getPath());
+        // also rejects impossible settings
+        return new GameSettings(columns, rows, mines);
+    }
+}
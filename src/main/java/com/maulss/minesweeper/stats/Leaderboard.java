@@ -0,0 +1,189 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import com.maulss.minesweeper.GameSettings;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best times of a history, for every {@link GameSettings} played and for
+ * every difficulty. Only the fastest {@link #SIZE} games of each are
+ * kept, so adding a game is cheap and the leaderboard never grows with
+ * the history. The lists are stored in the {@link GameArchive}, so they
+ * are never worked out from the whole history again.
+ */
+public final class Leaderboard {
+
+    public static final int SIZE = 10;
+
+    // smallest boards first, then fewest mines
+    static final Comparator<GameSettings> BY_SIZE = Comparator
+            .comparingInt((GameSettings settings) -> settings.getColumns() * settings.getRows())
+            .thenComparingInt(GameSettings::getMines)
+            .thenComparingInt(GameSettings::getColumns);
+
+    private final Map<GameSettings, Best> bySettings = new HashMap<>();
+    private final Map<String, Best> byDifficulty = new HashMap<>();
+
+    void add(final GameSettings settings,
+             final long date,
+             final long millis) {
+        add(forSettings(settings), forDifficulty(settings), settings, date, millis);
+    }
+
+    // the best times of another history, ranked after those already here when tied
+    void add(final Leaderboard other) {
+        for (Map.Entry<GameSettings, Best> entry : other.bySettings.entrySet())
+            forSettings(entry.getKey()).add(entry.getValue());
+        for (Map.Entry<String, Best> entry : other.byDifficulty.entrySet())
+            byDifficulty.computeIfAbsent(entry.getKey(), key -> new Best()).add(entry.getValue());
+    }
+
+    private void add(final Best forSettings,
+                     final Best forDifficulty,
+                     final GameSettings settings,
+                     final long date,
+                     final long millis) {
+        if (!forSettings.qualifies(millis) && !forDifficulty.qualifies(millis)) return;
+
+        ArchivedGame game = new ArchivedGame(settings, date, millis, TimeUnit.MILLISECONDS);
+        forSettings.add(game, millis);
+        forDifficulty.add(game, millis);
+    }
+
+    private Best forSettings(final GameSettings settings) {
+        return bySettings.computeIfAbsent(settings, key -> new Best());
+    }
+
+    private Best forDifficulty(final GameSettings settings) {
+        return byDifficulty.computeIfAbsent(settings.getDifficulty(), key -> new Best());
+    }
+
+    void clear() {
+        bySettings.clear();
+        byDifficulty.clear();
+    }
+
+    // every list, so a history can be opened without finding its best times again
+    void write(final DataOutput out) throws IOException {
+        out.writeInt(bySettings.size());
+        for (Best best : bySettings.values())
+            best.write(out);
+
+        out.writeInt(byDifficulty.size());
+        for (Map.Entry<String, Best> entry : byDifficulty.entrySet()) {
+            out.writeInt(Arrays.asList(Aggregates.DIFFICULTIES).indexOf(entry.getKey()));
+            entry.getValue().write(out);
+        }
+    }
+
+    static Leaderboard read(final ByteBuffer buffer) {
+        Leaderboard leaderboard = new Leaderboard();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            Best best = Best.read(buffer);
+            leaderboard.bySettings.put(best.games[0].getSettings(), best);
+        }
+        for (int count = buffer.getInt(); count > 0; count--) {
+            String difficulty = Aggregates.DIFFICULTIES[buffer.getInt()];
+            leaderboard.byDifficulty.put(difficulty, Best.read(buffer));
+        }
+        return leaderboard;
+    }
+
+    // fastest first
+    public List<ArchivedGame> getBest(final GameSettings settings) {
+        Best best = bySettings.get(settings);
+        return best == null ? Collections.emptyList() : best.toList();
+    }
+
+    // fastest first, over every settings of that difficulty
+    public List<ArchivedGame> getBest(final String difficulty) {
+        Best best = byDifficulty.get(difficulty);
+        return best == null ? Collections.emptyList() : best.toList();
+    }
+
+    // every settings played, smallest boards first
+    public List<GameSettings> getSettings() {
+        List<GameSettings> settings = new ArrayList<>(bySettings.keySet());
+        settings.sort(BY_SIZE);
+        return settings;
+    }
+
+    // every difficulty played, in order of difficulty
+    public List<String> getDifficulties() {
+        List<String> difficulties = new ArrayList<>();
+        for (String difficulty : Aggregates.DIFFICULTIES)
+            if (byDifficulty.containsKey(difficulty))
+                difficulties.add(difficulty);
+        return difficulties;
+    }
+
+    /**
+     * Up to SIZE games sorted by time, ties kept in the order they were
+     * added so the earlier game ranks higher.
+     */
+    private static final class Best {
+
+        private final ArchivedGame[] games = new ArchivedGame[SIZE];
+        private final long[] times = new long[SIZE];
+        private int size = 0;
+
+        boolean qualifies(final long millis) {
+            return size < SIZE || millis < times[size - 1];
+        }
+
+        void add(final ArchivedGame game,
+                 final long millis) {
+            if (!qualifies(millis)) return;
+
+            int position = size < SIZE ? size++ : SIZE - 1;
+            while (position > 0 && times[position - 1] > millis) {
+                games[position] = games[position - 1];
+                times[position] = times[position - 1];
+                position--;
+            }
+            games[position] = game;
+            times[position] = millis;
+        }
+
+        void add(final Best other) {
+            for (int x = 0; x < other.size; x++)
+                add(other.games[x], other.times[x]);
+        }
+
+        // never empty, as a list is only made for a game
+        void write(final DataOutput out) throws IOException {
+            out.writeInt(size);
+            for (int x = 0; x < size; x++) {
+                GameSettings settings = games[x].getSettings();
+                out.writeInt(settings.getColumns());
+                out.writeInt(settings.getRows());
+                out.writeInt(settings.getMines());
+                out.writeLong(games[x].getDate().getTime());
+                out.writeLong(times[x]);
+            }
+        }
+
+        static Best read(final ByteBuffer buffer) {
+            Best best = new Best();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                GameSettings settings = new GameSettings(buffer.getInt(), buffer.getInt(), buffer.getInt());
+                long date = buffer.getLong();
+                long millis = buffer.getLong();
+                best.add(new ArchivedGame(settings, date, millis, TimeUnit.MILLISECONDS), millis);
+            }
+            return best;
+        }
+
+        List<ArchivedGame> toList() {
+            return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(games, size)));
+        }
+    }
+}
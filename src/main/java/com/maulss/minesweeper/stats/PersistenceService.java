@@ -0,0 +1,235 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import com.maulss.minesweeper.Minesweeper;
+import com.maulss.minesweeper.replay.Recording;
+import com.maulss.minesweeper.replay.RecordingLog;
+import javafx.application.Platform;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the files behind {@link GameStats}, and the recordings of games
+ * kept beside them, and does all of their I/O on a single background
+ * thread, so nothing touches the disk from the FX thread. Games handed
+ * to {@link #append(ArchivedGame)} are queued and written in one batch
+ * by whichever write runs next. Failures are shown on the FX thread.
+ */
+final class PersistenceService implements Closeable {
+
+    private final Path archivePath;
+    private final Path logPath;
+    private final Path dataPath;
+    private final Path replaysPath;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "minesweeper-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<ArchivedGame> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    // only used on the writer thread
+    private GameLog log = null;
+    private RecordingLog recordings = null;
+
+    PersistenceService(final Path archivePath,
+                       final Path logPath,
+                       final Path dataPath,
+                       final Path replaysPath) {
+        this.archivePath = archivePath;
+        this.logPath = logPath;
+        this.dataPath = dataPath;
+        this.replaysPath = replaysPath;
+    }
+
+    /**
+     * Opens the archive, compacting the log into it if the log has grown
+     * long, and reads the rest of the log beside it before opening the log
+     * for appending. Completes with the history, or an empty one if it
+     * couldn't be read, in which case the log is still opened so games
+     * played from now on are kept.
+     */
+    CompletableFuture<ArchivedGames> load() {
+        return CompletableFuture.supplyAsync(() -> {
+            ArchivedGames games = new ArchivedGames();
+            try {
+                GameStats.setupStorage();
+
+                // games.json used to be the storage itself, it becomes the archive once. The
+                // archive only appears when complete, so its existence marks the move as done
+                if (!GameArchive.exists(archivePath) && Files.exists(dataPath)) {
+                    JsonImport result = JsonImport.read(dataPath);
+                    if (!result.isComplete()) report(result.getError());
+
+                    GameArchive.write(GameArchive.path(archivePath, 0L), 0L, result.getGames());
+                }
+
+                GameArchive archive = GameArchive.compact(archivePath, logPath);
+                games = new ArchivedGames(archive);
+                games.addAll(GameLog.read(logPath));
+            } catch (IOException | RuntimeException e) {
+                games = new ArchivedGames();
+                report(e);
+            }
+
+            try {
+                log = new GameLog(logPath);
+                recordings = new RecordingLog(replaysPath);
+            } catch (IOException e) {
+                report(e);
+            }
+            return games;
+        }, writer);
+    }
+
+    void append(final ArchivedGame game) {
+        pending.add(game);
+        if (scheduled.compareAndSet(false, true))
+            writer.execute(this::drain);
+    }
+
+    // many games at once, such as an import, written in order with those queued before
+    void append(final ArchivedGames games) {
+        submit(() -> {
+            drain();
+            requireLog().append(games);
+        });
+    }
+
+    void append(final Recording recording) {
+        submit(() -> requireRecordings().append(recording));
+    }
+
+    CompletableFuture<List<Recording>> loadRecordings() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return RecordingLog.read(replaysPath);
+            } catch (IOException e) {
+                report(e);
+                return new ArrayList<>();
+            }
+        }, writer);
+    }
+
+    // games.json style copy of the given games, which must not change meanwhile
+    CompletableFuture<Void> exportJson(final List<ArchivedGame> games,
+                                       final Path path) {
+        return call(() -> {
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                GameStats.GSON.toJson(games, writer);
+            }
+        });
+    }
+
+    // drops anything not yet written, then empties the archive and the log, failing if they weren't
+    CompletableFuture<Void> clear() {
+        return call(() -> {
+            pending.clear();
+            GameArchive.clear(archivePath, logPath);
+            requireLog().clear();
+            requireRecordings().clear();
+        });
+    }
+
+    // completes once every game appended so far is on disk
+    CompletableFuture<Void> flush() {
+        return submit(() -> {
+            drain();
+            requireLog().sync();
+            requireRecordings().sync();
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        submit(() -> {
+            drain();
+            if (log != null) log.close();
+            if (recordings != null) recordings.close();
+        }).join();
+
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5L, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        // cleared first, so a game queued while this runs schedules another drain
+        scheduled.set(false);
+
+        List<ArchivedGame> batch = new ArrayList<>();
+        for (ArchivedGame game; (game = pending.poll()) != null; )
+            batch.add(game);
+        if (batch.isEmpty()) return;
+
+        try {
+            requireLog().append(batch);
+        } catch (IOException e) {
+            report(e);
+        }
+    }
+
+    private CompletableFuture<Void> submit(final IOTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                report(e);
+            }
+        }, writer);
+    }
+
+    // like submit, but the future also fails, for callers waiting on the outcome
+    private CompletableFuture<Void> call(final IOTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                report(e);
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+
+    private GameLog requireLog() throws IOException {
+        if (log == null) throw new IOException("Game log at " + logPath + " could not be opened");
+        return log;
+    }
+
+    private RecordingLog requireRecordings() throws IOException {
+        if (recordings == null) throw new IOException("Recordings at " + replaysPath + " could not be opened");
+        return recordings;
+    }
+
+    private static void report(final Exception exception) {
+        Platform.runLater(() -> Minesweeper.alertError(exception));
+    }
+
+    @FunctionalInterface
+    private interface IOTask {
+        void run() throws IOException;
+    }
+}
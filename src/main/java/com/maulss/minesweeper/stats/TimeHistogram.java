@@ -0,0 +1,134 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.stats;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Distribution of game times in milliseconds, with a fixed number of
+ * logarithmic buckets: times below {@link #SUB_BUCKETS} are counted
+ * exactly, and every doubling above that is split into half as many
+ * buckets, so any time is known to within about 3%. Histograms of
+ * different histories, even from different machines, add up to the
+ * histogram of both.
+ */
+public final class TimeHistogram {
+
+    private static final int SUB_BUCKETS = 64;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int SHIFT = Integer.numberOfTrailingZeros(SUB_BUCKETS) - 1;
+
+    // longer than anyone will take, a little under 70 years
+    public static final long MAX_VALUE = (1L << 41) - 1;
+
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0L;
+    private long min = Long.MAX_VALUE;
+    private long max = 0L;
+
+    public void record(final long millis) {
+        long value = Math.max(0L, Math.min(MAX_VALUE, millis));
+        counts[index(value)]++;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void add(final TimeHistogram other) {
+        for (int x = 0; x < BUCKETS; x++)
+            counts[x] += other.counts[x];
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0L);
+        count = 0L;
+        min = Long.MAX_VALUE;
+        max = 0L;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0L;
+    }
+
+    public long getMin() {
+        return isEmpty() ? 0L : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * The time which the given percentage of games took at most, as the
+     * highest time of its bucket but never more than the slowest game.
+     */
+    public long getPercentile(final double percentile) {
+        if (isEmpty()) return 0L;
+
+        long target = Math.max(1L, (long) Math.ceil(count * Math.min(100d, percentile) / 100d));
+        long seen = 0L;
+        for (int x = 0; x < BUCKETS; x++) {
+            seen += counts[x];
+            if (seen >= target)
+                return Math.max(getMin(), Math.min(max, highest(x)));
+        }
+        return max;
+    }
+
+    // only the buckets in use are written
+    void write(final DataOutput out) throws IOException {
+        int used = 0;
+        for (long bucket : counts)
+            if (bucket != 0L) used++;
+
+        out.writeLong(count);
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeInt(used);
+        for (int x = 0; x < BUCKETS; x++) {
+            if (counts[x] == 0L) continue;
+            out.writeShort(x);
+            out.writeLong(counts[x]);
+        }
+    }
+
+    static TimeHistogram read(final ByteBuffer buffer) {
+        TimeHistogram histogram = new TimeHistogram();
+        histogram.count = buffer.getLong();
+        histogram.min = buffer.getLong();
+        histogram.max = buffer.getLong();
+        for (int used = buffer.getInt(); used > 0; used--)
+            histogram.counts[buffer.getShort()] = buffer.getLong();
+        return histogram;
+    }
+
+    private static int index(final long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        // value >> magnitude is in [HALF, SUB_BUCKETS)
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SHIFT;
+        return SUB_BUCKETS + (magnitude - 1) * HALF + (int) (value >> magnitude) - HALF;
+    }
+
+    private static long highest(final int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int magnitude = (index - SUB_BUCKETS) / HALF + 1;
+        long lowest = (long) ((index - SUB_BUCKETS) % HALF + HALF) << magnitude;
+        return lowest + (1L << magnitude) - 1;
+    }
+}
@@ -9,6 +9,7 @@ import javafx.scene.control.TextField;
 public class IntegerInput extends TextField {
 
     private Integer maxInts = null;
+    private Integer maxValue = null;
     private Runnable update = null;
 
     public IntegerInput() {
@@ -17,6 +18,8 @@ public class IntegerInput extends TextField {
                 setText(newValue.substring(0, maxInts));
             } else if (!newValue.matches("\\d*")) {
                 setText(newValue.replaceAll("[^\\d]", ""));
+            } else if (maxValue != null && !newValue.isEmpty() && Long.parseLong(newValue) > maxValue) {
+                setText(String.valueOf(maxValue));
             }
 
             if (update != null)
@@ -32,6 +35,11 @@ public class IntegerInput extends TextField {
         this.maxInts = maxInts;
     }
 
+    public void setMaxValue(final Integer maxValue) {
+        this.maxValue = maxValue;
+        setMaxInts(maxValue == null ? null : String.valueOf(maxValue).length());
+    }
+
     public void input(final Integer input) {
         if (input == null) return;
         setText(String.valueOf(input));
@@ -4,10 +4,17 @@
 
 package com.maulss.minesweeper.ui;
 
+import com.maulss.minesweeper.BoardView;
 import com.maulss.minesweeper.GameSettings;
 import com.maulss.minesweeper.Minesweeper;
+import com.maulss.minesweeper.replay.Recording;
+import com.maulss.minesweeper.replay.ReplayPlayer;
+import com.maulss.minesweeper.replay.Verifier;
+import com.maulss.minesweeper.stats.ArchivedGame;
 import com.maulss.minesweeper.stats.ArchivedGames;
 import com.maulss.minesweeper.stats.GameStats;
+import com.maulss.minesweeper.stats.Leaderboard;
+import com.maulss.minesweeper.stats.TimeHistogram;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -15,11 +22,19 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 public class MineMenuBar extends MenuBar {
@@ -32,6 +47,13 @@ public class MineMenuBar extends MenuBar {
         newGame.setOnAction(event -> minesweeper.newGame());
         MenuItem close = new MenuItem("Close");
         close.setOnAction(event -> {
+            // wait for games still being saved
+            try {
+                GameStats.shutdown();
+            } catch (IOException e) {
+                Minesweeper.alertError(e);
+            }
+
             Platform.exit();
             System.exit(0);
         });
@@ -57,17 +79,17 @@ public class MineMenuBar extends MenuBar {
             pane.getButtonTypes().addAll(ButtonType.APPLY, ButtonType.CANCEL);
 
             IntegerInput columns = new IntegerInput();
-            columns.setMaxInts(2);
+            columns.setMaxValue(GameSettings.MAX_LENGTH);
             columns.setMaxWidth(150);
             columns.setPromptText("Columns");
 
             IntegerInput rows = new IntegerInput();
-            rows.setMaxInts(2);
+            rows.setMaxValue(GameSettings.MAX_LENGTH);
             rows.setMaxWidth(150);
             rows.setPromptText("Rows");
 
             IntegerInput mines = new IntegerInput();
-            mines.setMaxInts(4);
+            mines.setMaxInts(8);
             mines.setMaxWidth(150);
             mines.setPromptText("Mines");
             mines.setDisable(true);
@@ -121,13 +143,30 @@ public class MineMenuBar extends MenuBar {
 
             dialog.showAndWait().ifPresent(minesweeper::setup);
         });
+
+        // Board renderer
+        Menu renderer = new Menu("Renderer");
+        ToggleGroup renderers = new ToggleGroup();
+        for (BoardView.Type type : BoardView.Type.values()) {
+            RadioMenuItem item = new RadioMenuItem(type.getName());
+            item.setToggleGroup(renderers);
+            item.setSelected(type == minesweeper.getViewType());
+            item.setOnAction(event -> minesweeper.setViewType(type));
+            renderer.getItems().add(item);
+        }
+
+        // Only generate boards which can be solved without guessing
+        CheckMenuItem noGuess = new CheckMenuItem("No Guessing");
+        noGuess.setSelected(minesweeper.isNoGuess());
+        noGuess.setOnAction(event -> minesweeper.setNoGuess(noGuess.isSelected()));
+
         settingsMenu.getItems().addAll(beginner, intermediate, expert,
-                professional, new SeparatorMenuItem(), custom);
+                professional, new SeparatorMenuItem(), custom,
+                new SeparatorMenuItem(), noGuess, renderer);
 
         Menu statsMenu = new Menu("Stats");
         MenuItem viewStats = new MenuItem("View Stats");
-        viewStats.setOnAction(event -> {
-            GameStats stats = minesweeper.getStats();
+        viewStats.setOnAction(event -> minesweeper.getStats().thenAcceptAsync(stats -> {
             ArchivedGames games = stats.getGames();
 
             // Stats stage modal
@@ -168,6 +207,21 @@ public class MineMenuBar extends MenuBar {
                 grid.add(new Label("Average Time"), 0, 5);
                 grid.add(new Label(games.getAverageTime(TimeUnit.SECONDS) + " seconds"), 1, 5);
 
+                // spread of times for every settings played
+                int row = 6;
+                for (Map.Entry<GameSettings, TimeHistogram> entry : games.getHistograms().entrySet()) {
+                    GameSettings settings = entry.getKey();
+                    TimeHistogram histogram = entry.getValue();
+                    grid.add(new Label(settings.getColumns() + " x " + settings.getRows() + ", "
+                            + settings.getMines() + " mines (" + histogram.getCount() + " games)"), 0, row);
+                    grid.add(new Label(String.format("p50 %.2fs, p90 %.2fs, p99 %.2fs, min %.2fs, max %.2fs",
+                            histogram.getPercentile(50) / 1000d,
+                            histogram.getPercentile(90) / 1000d,
+                            histogram.getPercentile(99) / 1000d,
+                            histogram.getMin() / 1000d,
+                            histogram.getMax() / 1000d)), 1, row++);
+                }
+
                 statsPage.getChildren().add(grid);
             }
 
@@ -175,19 +229,18 @@ public class MineMenuBar extends MenuBar {
             Button clear = new Button("Clear Stats");
             GridPane.setHgrow(clear, Priority.ALWAYS);
             clear.setOnAction(event1 -> {
-                try {
-                    GameStats.writeJson(GameStats.GSON, new ArchivedGames());
-                    // only clear cache once storage has successfully been cleared
-                    games.clear();
+                // only update the UI once storage has successfully been cleared
+                clear.setDisable(true);
+                stats.clear().whenCompleteAsync((ignored, error) -> {
+                    if (error != null) {
+                        clear.setDisable(false);
+                        return;
+                    }
 
-                    // update UI
                     statsPage.getChildren().remove(grid);
                     top.setText("You haven't played any games");
-                    clear.setDisable(true);
                     statsStage.sizeToScene();
-                } catch (IOException e) {
-                    Minesweeper.alertError(e);
-                }
+                }, Platform::runLater);
             });
             if (games.isEmpty()) clear.setDisable(true);
 
@@ -196,7 +249,43 @@ public class MineMenuBar extends MenuBar {
             GridPane.setHgrow(data, Priority.ALWAYS);
             data.setOnAction(event1 -> GameStats.openDirectory(GameStats.HOME_PATH));
 
-            HBox hBox = new HBox(20, clear, data);
+            // games.json is kept as a portable copy of the history
+            FileChooser chooser = new FileChooser();
+            chooser.setInitialDirectory(new File(GameStats.HOME_PATH));
+            chooser.setInitialFileName("games.json");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+
+            Button export = new Button("Export");
+            export.setOnAction(event1 -> {
+                File file = chooser.showSaveDialog(statsStage);
+                if (file == null) return;
+
+                // failures are shown by the stats, the button only waits for the outcome
+                export.setDisable(true);
+                stats.exportJson(file.toPath()).whenCompleteAsync((ignored, error) -> {
+                    export.setText(error == null ? "Exported" : "Export");
+                    export.setDisable(false);
+                }, Platform::runLater);
+            });
+            if (games.isEmpty()) export.setDisable(true);
+
+            Button load = new Button("Import");
+            load.setOnAction(event1 -> {
+                List<File> files = chooser.showOpenMultipleDialog(statsStage);
+                if (files == null) return;
+
+                List<Path> paths = new ArrayList<>(files.size());
+                for (File file : files) paths.add(file.toPath());
+
+                // reopen to show the merged history
+                load.setDisable(true);
+                stats.importJson(paths).thenRun(() -> {
+                    statsStage.close();
+                    viewStats.fire();
+                });
+            });
+
+            HBox hBox = new HBox(20, clear, export, load, data);
             hBox.setAlignment(Pos.CENTER);
             statsPage.getChildren().add(hBox);
 
@@ -206,8 +295,136 @@ public class MineMenuBar extends MenuBar {
             statsStage.initModality(Modality.APPLICATION_MODAL);
             statsStage.setScene(new Scene(statsPage));
             statsStage.showAndWait();
-        });
-        statsMenu.getItems().addAll(viewStats);
+        }, Platform::runLater));
+
+        MenuItem leaderboard = new MenuItem("Leaderboard");
+        leaderboard.setOnAction(event -> minesweeper.getStats().thenAcceptAsync(stats -> {
+            ArchivedGames games = stats.getGames();
+            Leaderboard best = games.getLeaderboard();
+
+            Stage leaderboardStage = new Stage();
+
+            VBox leaderboardPage = new VBox(20);
+            leaderboardPage.setPadding(new Insets(20));
+
+            // games of the last week, found through the date index
+            long now = System.currentTimeMillis();
+            Label top = new Label(games.countBetween(now - TimeUnit.DAYS.toMillis(7), now + 1) + " games won this week");
+            top.setFont(Font.font(20));
+            top.setAlignment(Pos.CENTER);
+            leaderboardPage.getChildren().add(top);
+
+            // difficulties first, then every settings played
+            ChoiceBox<String> board = new ChoiceBox<>();
+            Map<String, List<ArchivedGame>> boards = new LinkedHashMap<>();
+            for (String difficulty : best.getDifficulties())
+                boards.put(difficulty, best.getBest(difficulty));
+            for (GameSettings settings : best.getSettings())
+                boards.put(settings.getColumns() + " x " + settings.getRows() + ", "
+                        + settings.getMines() + " mines", best.getBest(settings));
+            board.getItems().addAll(boards.keySet());
+
+            GridPane grid = new GridPane();
+            grid.setHgap(40);
+            grid.setVgap(5);
+
+            board.setOnAction(event1 -> {
+                grid.getChildren().clear();
+                List<ArchivedGame> entries = boards.get(board.getValue());
+                for (int rank = 0; rank < entries.size(); rank++) {
+                    ArchivedGame game = entries.get(rank);
+                    grid.add(new Label("#" + (rank + 1)), 0, rank);
+                    grid.add(new Label(String.format("%.3f seconds", game.getTime(TimeUnit.MILLISECONDS) / 1000d)), 1, rank);
+                    grid.add(new Label(game.getDate().toString()), 2, rank);
+                }
+                leaderboardStage.sizeToScene();
+            });
+
+            if (boards.isEmpty()) {
+                top.setText("You haven't played any games");
+            } else {
+                leaderboardPage.getChildren().addAll(board, grid);
+                board.setValue(board.getItems().get(0));
+            }
+
+            leaderboardStage.setTitle("Minesweeper leaderboard");
+            leaderboardStage.getIcons().addAll(Resources.getImage("flag.png"));
+            leaderboardStage.initOwner(getScene().getWindow());
+            leaderboardStage.initModality(Modality.APPLICATION_MODAL);
+            leaderboardStage.setScene(new Scene(leaderboardPage));
+            leaderboardStage.showAndWait();
+        }, Platform::runLater));
+
+        MenuItem replays = new MenuItem("Replays");
+        replays.setOnAction(event -> minesweeper.getStats().thenCompose(GameStats::loadRecordings).thenAcceptAsync(recordings -> {
+            Stage replaysStage = new Stage();
+
+            VBox replaysPage = new VBox(20);
+            replaysPage.setPadding(new Insets(20));
+
+            Label top = new Label(recordings.size() + " recorded games");
+            top.setFont(Font.font(20));
+            replaysPage.getChildren().add(top);
+
+            // newest first
+            ListView<String> list = new ListView<>();
+            List<Recording> shown = new ArrayList<>();
+            for (int x = recordings.size() - 1; x >= 0 && shown.size() < 100; x--) {
+                Recording recording = recordings.get(x);
+                GameSettings settings = recording.getSettings();
+                shown.add(recording);
+                list.getItems().add(String.format("%s  %d x %d, %d mines  %.3f seconds  %d clicks",
+                        recording.getResult() == Recording.WON ? "Won "
+                                : recording.getResult() == Recording.LOST ? "Lost" : "Left",
+                        settings.getColumns(), settings.getRows(), settings.getMines(),
+                        recording.getDuration() / 1e9, recording.getEventCount()));
+            }
+            list.setPrefWidth(520);
+            replaysPage.getChildren().add(list);
+
+            ChoiceBox<String> speed = new ChoiceBox<>();
+            speed.getItems().addAll("1x", "2x", "4x", "10x", "Instant");
+            speed.setValue("1x");
+
+            Button play = new Button("Play");
+            play.setOnAction(event1 -> {
+                int selected = list.getSelectionModel().getSelectedIndex();
+                if (selected == -1) return;
+
+                String value = speed.getValue();
+                replaysStage.close();
+                minesweeper.replay(shown.get(selected), value.equals("Instant")
+                        ? ReplayPlayer.INSTANT
+                        : Double.parseDouble(value.substring(0, value.length() - 1)));
+            });
+
+            // replays every recording headless on all cores
+            Label verified = new Label();
+            Button verify = new Button("Verify All");
+            verify.setOnAction(event1 -> {
+                verify.setDisable(true);
+                CompletableFuture.supplyAsync(() -> Verifier.verifyAll(recordings))
+                        .thenAcceptAsync(report -> {
+                            verified.setText(report.isValid()
+                                    ? "All " + report.getRecordings() + " recordings verified"
+                                    : (report.getRecordings() - report.getCount(Verifier.Result.VALID))
+                                    + " of " + report.getRecordings() + " recordings failed");
+                            verify.setDisable(false);
+                        }, Platform::runLater);
+            });
+
+            HBox hBox = new HBox(20, speed, play, verify, verified);
+            hBox.setAlignment(Pos.CENTER_LEFT);
+            replaysPage.getChildren().add(hBox);
+
+            replaysStage.setTitle("Minesweeper replays");
+            replaysStage.getIcons().addAll(Resources.getImage("flag.png"));
+            replaysStage.initOwner(getScene().getWindow());
+            replaysStage.initModality(Modality.APPLICATION_MODAL);
+            replaysStage.setScene(new Scene(replaysPage));
+            replaysStage.showAndWait();
+        }, Platform::runLater));
+        statsMenu.getItems().addAll(viewStats, leaderboard, replays);
 
         getMenus().addAll(fileMenu, settingsMenu, statsMenu);
     }
@@ -15,11 +15,17 @@ public final class Resources {
             .currentThread()
             .getContextClassLoader();
 
+    public static final Image
+            MINE_IMAGE          = getImage("mine.png"),
+            MINE_WRONG_IMAGE    = getImage("mine_wrong.png"),
+            MINE_SOURCE_IMAGE   = getImage("mine_source.png"),
+            FLAG_IMAGE          = getImage("flag.png");
+
     public static final Background
-            MINE        = getAutoBackground(getImage("mine.png")),
-            MINE_WRONG  = getAutoBackground(getImage("mine_wrong.png")),
-            MINE_SOURCE = getAutoBackground(getImage("mine_source.png")),
-            FLAG        = getAutoBackground(getImage("flag.png")),
+            MINE        = getAutoBackground(MINE_IMAGE),
+            MINE_WRONG  = getAutoBackground(MINE_WRONG_IMAGE),
+            MINE_SOURCE = getAutoBackground(MINE_SOURCE_IMAGE),
+            FLAG        = getAutoBackground(FLAG_IMAGE),
             DEFAULT_BG  = new Background(new BackgroundFill(Color.WHITE, null, null));
 
     public static Image getImage(final String resource) {
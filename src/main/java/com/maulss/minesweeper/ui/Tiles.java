@@ -0,0 +1,108 @@
+/*
+ * Part of minesweeper.
+ */
+
+package com.maulss.minesweeper.ui;
+
+import com.maulss.minesweeper.MineButtons;
+import com.maulss.minesweeper.board.Board;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-rasterized images of every state a cell can be drawn in, so board
+ * renderers only have to copy a tile instead of laying out a control.
+ */
+public final class Tiles {
+
+    private static final Map<Integer, Tiles> CACHE = new HashMap<>();
+
+    private static final Color
+            HIDDEN      = Color.WHITE,
+            REVEALED    = Color.web("#f4f4f4"),
+            BORDER      = Color.LIGHTGRAY;
+
+    private final int size;
+    private final Image hidden;
+    private final Image flag;
+    private final Image mine;
+    private final Image mineWrong;
+    private final Image mineSource;
+    private final Image[] numbers = new Image[9];
+
+    private Tiles(final int size) {
+        this.size = size;
+
+        hidden      = render(size, HIDDEN,      null,                           null);
+        flag        = render(size, REVEALED,    Resources.FLAG_IMAGE,           null);
+        mine        = render(size, REVEALED,    Resources.MINE_IMAGE,           null);
+        mineWrong   = render(size, REVEALED,    Resources.MINE_WRONG_IMAGE,     null);
+        mineSource  = render(size, REVEALED,    Resources.MINE_SOURCE_IMAGE,    null);
+
+        numbers[0] = render(size, REVEALED, null, null);
+        for (int x = 1; x < numbers.length; x++)
+            numbers[x] = render(size, REVEALED, null, x);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Image get(final Board board,
+                     final int index) {
+        boolean flagged = board.isFlagged(index);
+
+        if (!board.isRevealed(index))
+            return flagged ? flag : hidden;
+        if (board.isMine(index)) {
+            if (index == board.getExploded())
+                return mineSource;
+            return flagged ? flag : mine;
+        }
+        return flagged ? mineWrong : numbers[board.getNumber(index)];
+    }
+
+    private static Image render(final int size,
+                                final Color fill,
+                                final Image image,
+                                final Integer number) {
+        Canvas canvas = new Canvas(size, size);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+
+        gc.setFill(fill);
+        gc.fillRect(0, 0, size, size);
+
+        if (image != null)
+            gc.drawImage(image, 0, 0, size, size);
+
+        if (number != null) {
+            gc.setFont(Font.font("Courier New", FontWeight.BLACK, 18));
+            gc.setFill(MineButtons.getColor(number));
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(String.valueOf(number), size / 2d, size / 2d);
+        }
+
+        gc.setStroke(BORDER);
+        gc.setLineWidth(1);
+        gc.strokeRect(.5, .5, size - 1, size - 1);
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
+    }
+
+    public static Tiles of(final int size) {
+        return CACHE.computeIfAbsent(size, Tiles::new);
+    }
+}